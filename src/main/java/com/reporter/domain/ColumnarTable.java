@@ -0,0 +1,447 @@
+package com.reporter.domain;
+
+import com.google.common.base.MoreObjects;
+import com.google.common.collect.Iterables;
+import com.reporter.domain.styles.Style;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.function.Function;
+
+/**
+ * Table storing cells column-wise in compact arrays instead of {@link TableRow}/{@link TableCell} objects:
+ * string columns keep a dictionary of distinct values and a code per row,
+ * numeric columns keep primitive arrays.
+ * <p>
+ * Rows are visited through a flyweight cursor: one {@link TableRow} with one {@link TableCell} per column
+ * refilled for every row, so a visitor must not keep references to visited rows or cells.
+ * Only values are kept: styles are given to all rows and cells at once by
+ * {@link ColumnarTable#spreadStyleToParts(Style, int)}, rows with own styles are rejected
+ */
+public class ColumnarTable extends Table {
+
+    private static final int INITIAL_CAPACITY = 64;
+
+    /**
+     * Storage type of a column
+     */
+    public enum ColumnType {
+        /**
+         * Text stored by dictionary codes
+         */
+        STRING,
+        /**
+         * Integer numbers stored as long
+         */
+        LONG,
+        /**
+         * Floating point numbers stored as double
+         */
+        DOUBLE
+    }
+
+    protected ColumnType[] columnTypes = new ColumnType[0];
+
+    private Column[] columns = new Column[0];
+
+    /**
+     * Styles spread to the cursor row and cells
+     */
+    private Style rowStyle;
+    private Style cellStyle;
+
+    public static ColumnarTable create(TableHeaderRow tableHeaderRow, ColumnType... columnTypes) {
+        return new ColumnarTable().setColumnTypes(columnTypes).setTableHeaderRow(tableHeaderRow);
+    }
+
+    public static ColumnarTable create(ColumnType... columnTypes) {
+        return new ColumnarTable().setColumnTypes(columnTypes);
+    }
+
+    /**
+     * Appends a row, columns without a declared type are {@link ColumnType#STRING}
+     *
+     * @param values values of the row in order of columns, numbers for numeric columns
+     * @return ColumnarTable
+     */
+    public ColumnarTable addRow(Object... values) {
+        ensureColumns(values.length);
+        for (int i = 0; i < columns.length; i++) {
+            final var value = i < values.length ? values[i] : null;
+            try {
+                columns[i].add(rowCount, value);
+            } catch (NumberFormatException e) {
+                // Columns filled before the failed one are overwritten by the next added row
+                throw new IllegalArgumentException(
+                    "Column " + getColumnName(i) + " of type " + columns[i].type + " expects a number: '" + value + "'",
+                    e
+                );
+            }
+        }
+        rowCount += 1;
+        colCount = Integer.max(colCount, values.length);
+        return this;
+    }
+
+    /**
+     * Appends values of the row cells, the row itself is not kept
+     *
+     * @param docItem row without own styles of the row and cells and without custom cell indexes
+     * @return ColumnarTable
+     * @throws IllegalArgumentException the row has a style or a cell index that would be lost
+     */
+    @Override
+    public ColumnarTable addPart(TableRow docItem) {
+        if (docItem.getStyle() != null) {
+            throw new IllegalArgumentException("Styled rows are not kept by ColumnarTable, spread the style instead");
+        }
+        final var values = new ArrayList<>();
+        for (final var cell : docItem.getParts()) {
+            if (cell.getStyle() != null || cell.getCustomIndex() != docItem.getRowIndex()) {
+                throw new IllegalArgumentException(
+                    "Styled cells and custom cell indexes are not kept by ColumnarTable, spread the style instead"
+                );
+            }
+            values.add(cell.getValue() != null ? cell.getValue() : cell.getText());
+        }
+        return addRow(values.toArray());
+    }
+
+    @Override
+    public ColumnarTable addParts(TableRow... docItems) {
+        for (final var docItem : docItems) {
+            addPart(docItem);
+        }
+        return this;
+    }
+
+    /**
+     * Replaces the rows by values of the given rows, see {@link ColumnarTable#addPart(TableRow)},
+     * lazily produced parts are read up to the end
+     *
+     * @param parts rows
+     * @return ColumnarTable
+     */
+    @Override
+    public ColumnarTable setParts(Iterable<TableRow> parts) {
+        columns = new Column[0];
+        rowCount = 0;
+        colCount = 0;
+        for (final var part : parts) {
+            addPart(part);
+        }
+        return this;
+    }
+
+    /**
+     * Replaces the rows by values of the lazily produced rows, which are read up to the end,
+     * see {@link ColumnarTable#setParts(Iterable)}
+     *
+     * @param rows lazy iterator over rows
+     * @return ColumnarTable
+     */
+    @Override
+    public ColumnarTable setStreamedParts(Iterator<TableRow> rows) {
+        return setParts(() -> rows);
+    }
+
+    /**
+     * Returns rows as a flyweight cursor, every iterator refills the same row and cells
+     *
+     * @return Iterable over rows
+     */
+    @Override
+    public Iterable<TableRow> getParts() {
+        return Cursor::new;
+    }
+
+    /**
+     * Spreads the style to the cursor row and cells, one clone is shared by all rows
+     *
+     * @param style style that will be applied to parts
+     * @param depth depth of nested parts
+     * @return ColumnarTable
+     * @throws CloneNotSupportedException style is not Cloneable
+     */
+    @Override
+    public ColumnarTable spreadStyleToParts(Style style, int depth) throws CloneNotSupportedException {
+        if (depth != 0 && style != null) {
+            final var styleCondition = style.getCondition();
+            if (rowStyle == null
+                && (styleCondition == null || TableRow.class.isAssignableFrom(styleCondition.getClazz()))
+            ) {
+                rowStyle = style.clone();
+            }
+            if (depth - 1 != 0
+                && cellStyle == null
+                && (styleCondition == null || TableCell.class.isAssignableFrom(styleCondition.getClazz()))
+            ) {
+                cellStyle = style.clone();
+            }
+        }
+        return this;
+    }
+
+    /**
+     * Returns value of the cell
+     *
+     * @param rowIndex    row index
+     * @param columnIndex column index
+     * @return String, Long, Double or null
+     */
+    public Object getValue(int rowIndex, int columnIndex) {
+        if (rowIndex < 0 || rowIndex >= rowCount) {
+            throw new IndexOutOfBoundsException("Row index " + rowIndex + " out of " + rowCount);
+        }
+        return columns[columnIndex].get(rowIndex);
+    }
+
+    /**
+     * Returns the name of the column for messages
+     *
+     * @param columnIndex column index
+     * @return header text and index of the column
+     */
+    private String getColumnName(int columnIndex) {
+        return getTableHeaderRow()
+            .map(tableHeaderRow -> Iterables.get(tableHeaderRow.getParts(), columnIndex, null))
+            .map(TableHeaderCell::getText)
+            .map(name -> "'" + name + "' (" + columnIndex + ")")
+            .orElse(String.valueOf(columnIndex));
+    }
+
+    private void ensureColumns(int count) {
+        if (count <= columns.length) {
+            return;
+        }
+        final var extended = Arrays.copyOf(columns, count);
+        for (int i = columns.length; i < count; i++) {
+            final var type = i < columnTypes.length && columnTypes[i] != null ? columnTypes[i] : ColumnType.STRING;
+            extended[i] = createColumn(type);
+            // Rows added before the column appeared have no value in it
+            for (int row = 0; row < rowCount; row++) {
+                extended[i].add(row, null);
+            }
+        }
+        columns = extended;
+    }
+
+    private static Column createColumn(ColumnType type) {
+        switch (type) {
+            case LONG:
+                return new LongColumn();
+            case DOUBLE:
+                return new DoubleColumn();
+            default:
+                return new StringColumn();
+        }
+    }
+
+    /**
+     * Flyweight iterator over rows
+     */
+    private class Cursor implements Iterator<TableRow> {
+        private final TableRow tableRow = TableRow.create();
+        private final TableCell[] cells = new TableCell[columns.length];
+        private int rowIndex;
+
+        Cursor() {
+            final var rowParts = new ArrayList<TableCell>(cells.length);
+            for (int i = 0; i < cells.length; i++) {
+                cells[i] = TableCell.create();
+                cells[i].setStyle(cellStyle);
+                rowParts.add(cells[i]);
+            }
+            tableRow.setParts(rowParts);
+            tableRow.setStyle(rowStyle);
+        }
+
+        @Override
+        public boolean hasNext() {
+            return rowIndex < rowCount;
+        }
+
+        @Override
+        public TableRow next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            for (int i = 0; i < cells.length; i++) {
+                final var value = columns[i].get(rowIndex);
+                cells[i].setValue(value, columns[i].getTextFormat());
+                if (value == null) {
+                    cells[i].setText("");
+                }
+            }
+            tableRow.setRowIndex(rowIndex++);
+            return tableRow;
+        }
+    }
+
+    /**
+     * Column storage
+     */
+    private abstract static class Column {
+        protected final BitSet nulls = new BitSet();
+        protected final ColumnType type;
+
+        Column(ColumnType type) {
+            this.type = type;
+        }
+
+        /**
+         * Returns conversion of values to text
+         *
+         * @return format of values, null - the default one
+         */
+        Function<Object, String> getTextFormat() {
+            return null;
+        }
+
+        abstract void add(int rowIndex, Object value);
+
+        abstract Object get(int rowIndex);
+    }
+
+    private static class StringColumn extends Column {
+        private final Map<String, Integer> codes = new HashMap<>();
+        private final List<String> dictionary = new ArrayList<>();
+        private int[] rowCodes = new int[INITIAL_CAPACITY];
+
+        StringColumn() {
+            super(ColumnType.STRING);
+        }
+
+        @Override
+        void add(int rowIndex, Object value) {
+            if (rowIndex == rowCodes.length) {
+                rowCodes = Arrays.copyOf(rowCodes, rowCodes.length * 2);
+            }
+            if (value == null) {
+                nulls.set(rowIndex);
+                return;
+            }
+            nulls.clear(rowIndex);
+            final var text = value.toString();
+            var code = codes.get(text);
+            if (code == null) {
+                code = dictionary.size();
+                dictionary.add(text);
+                codes.put(text, code);
+            }
+            rowCodes[rowIndex] = code;
+        }
+
+        @Override
+        Object get(int rowIndex) {
+            return nulls.get(rowIndex) ? null : dictionary.get(rowCodes[rowIndex]);
+        }
+    }
+
+    private static class LongColumn extends Column {
+        private long[] values = new long[INITIAL_CAPACITY];
+
+        LongColumn() {
+            super(ColumnType.LONG);
+        }
+
+        @Override
+        void add(int rowIndex, Object value) {
+            if (rowIndex == values.length) {
+                values = Arrays.copyOf(values, values.length * 2);
+            }
+            if (value == null) {
+                nulls.set(rowIndex);
+            } else {
+                nulls.clear(rowIndex);
+                values[rowIndex] =
+                    value instanceof Number
+                        ? ((Number) value).longValue()
+                        : Long.parseLong(value.toString());
+            }
+        }
+
+        @Override
+        Object get(int rowIndex) {
+            return nulls.get(rowIndex) ? null : values[rowIndex];
+        }
+    }
+
+    private static class DoubleColumn extends Column {
+        private double[] values = new double[INITIAL_CAPACITY];
+
+        DoubleColumn() {
+            super(ColumnType.DOUBLE);
+        }
+
+        /**
+         * Formats finite doubles in plain notation, e.g. 10000000 instead of 1.0E7
+         */
+        private static final Function<Object, String> PLAIN_FORMAT = value -> {
+            final var number = (Double) value;
+            return Double.isFinite(number) ? BigDecimal.valueOf(number).toPlainString() : number.toString();
+        };
+
+        @Override
+        Function<Object, String> getTextFormat() {
+            return PLAIN_FORMAT;
+        }
+
+        @Override
+        void add(int rowIndex, Object value) {
+            if (rowIndex == values.length) {
+                values = Arrays.copyOf(values, values.length * 2);
+            }
+            if (value == null) {
+                nulls.set(rowIndex);
+            } else {
+                nulls.clear(rowIndex);
+                values[rowIndex] =
+                    value instanceof Number
+                        ? ((Number) value).doubleValue()
+                        : Double.parseDouble(value.toString());
+            }
+        }
+
+        @Override
+        Object get(int rowIndex) {
+            return nulls.get(rowIndex) ? null : values[rowIndex];
+        }
+    }
+
+    @Override
+    public ColumnarTable setTableHeaderRow(TableHeaderRow tableHeaderRow) {
+        super.setTableHeaderRow(tableHeaderRow);
+        return this;
+    }
+
+    @Override
+    public String toString() {
+        return
+            MoreObjects.toStringHelper(this)
+                .add("columnTypes", Arrays.toString(columnTypes))
+                .add("rowCount", rowCount)
+                .add("parent", super.toString())
+                .toString();
+    }
+
+    public ColumnType[] getColumnTypes() {
+        return columnTypes.clone();
+    }
+
+    public ColumnarTable setColumnTypes(ColumnType... columnTypes) {
+        if (rowCount > 0) {
+            throw new IllegalStateException("Column types are set before rows are added");
+        }
+        this.columnTypes = columnTypes.clone();
+        this.columns = new Column[0];
+        return this;
+    }
+}
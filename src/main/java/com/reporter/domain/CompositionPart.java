@@ -7,12 +7,31 @@ import com.google.common.base.MoreObjects;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 
 /**
  * The compositional part of the presentation of the document,
  * consists of Iterable(K extends {@link DocumentItem}) elements
  */
 public abstract class CompositionPart<T extends CompositionPart<?, ?>, K extends DocumentItem> extends DocumentItem {
+    /**
+     * Whether the class overrides {@link CompositionPart#spreadStyleToParts(Style, int)},
+     * e.g. because its parts are not kept in {@link CompositionPart#parts}
+     */
+    private static final ClassValue<Boolean> hasOwnSpreadStyle = new ClassValue<>() {
+        @Override
+        protected Boolean computeValue(Class<?> type) {
+            try {
+                return type.getMethod("spreadStyleToParts", Style.class, int.class).getDeclaringClass()
+                    != CompositionPart.class;
+            } catch (NoSuchMethodException e) {
+                return false;
+            }
+        }
+    };
+
     protected Iterable<K> parts;
 
     @Override
@@ -82,6 +101,131 @@ public abstract class CompositionPart<T extends CompositionPart<?, ?>, K extends
         return (T) this;
     }
 
+    /**
+     * Alternative to {@link CompositionPart#spreadStyleToParts(Style)} for large compositions:
+     * all matching parts get one shared frozen copy of the style (see {@link Style#freeze()})
+     * instead of a clone each, so the style of a part can not be changed, only replaced.
+     *
+     * @param style style that will be applied to parts
+     * @return CompositionPart
+     */
+    public T spreadSharedStyleToParts(Style style) {
+        return spreadSharedStyleToParts(style, -1, null);
+    }
+
+    /**
+     * Same as {@link CompositionPart#spreadSharedStyleToParts(Style)}, parts are traversed
+     * depth-first in batches of 1024 parts, batches of part lists
+     * are processed in parallel on the pool if it is set.
+     * Compositions overriding {@link CompositionPart#spreadStyleToParts(Style, int)} get the style through it
+     *
+     * @param style style that will be applied to parts
+     * @param depth depth of nested parts to apply the style to, -1 - all
+     * @param pool  pool processing batches, e.g. {@link ForkJoinPool#commonPool()}, null - the calling thread
+     * @return CompositionPart
+     */
+    @SuppressWarnings("unchecked")
+    public T spreadSharedStyleToParts(Style style, int depth, ForkJoinPool pool) {
+        if (depth != 0 && style != null) {
+            final var task = new SpreadStyleTask(style.freeze(), style.getCondition(), depth, pool != null);
+            if (pool != null && !hasOwnSpreadStyle.get(getClass())) {
+                pool.invoke(new SpreadStyleTask(getParts(), task));
+            } else {
+                task.spreadToParts(this);
+            }
+        }
+        return (T) this;
+    }
+
+    /**
+     * Applies a shared style to a range of parts and, depth-first, to their nested parts
+     */
+    private static class SpreadStyleTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        /**
+         * Maximum number of parts of a list handled by one task
+         */
+        private static final int BATCH_SIZE = 1024;
+
+        private final transient Iterable<? extends DocumentItem> parts;
+        private final int from;
+        private final int to;
+        private final transient Style style;
+        private final transient StyleCondition condition;
+        private final int depth;
+        private final boolean isParallel;
+
+        SpreadStyleTask(Style style, StyleCondition condition, int depth, boolean isParallel) {
+            this(null, 0, 0, style, condition, depth, isParallel);
+        }
+
+        SpreadStyleTask(Iterable<? extends DocumentItem> parts, SpreadStyleTask settings) {
+            this(parts, 0, -1, settings.style, settings.condition, settings.depth, settings.isParallel);
+        }
+
+        private SpreadStyleTask(Iterable<? extends DocumentItem> parts, int from, int to, Style style,
+                                StyleCondition condition, int depth, boolean isParallel) {
+            this.parts = parts;
+            this.from = from;
+            this.to = to < 0 && parts instanceof List ? ((List<?>) parts).size() : to;
+            this.style = style;
+            this.condition = condition;
+            this.depth = depth;
+            this.isParallel = isParallel;
+        }
+
+        @Override
+        protected void compute() {
+            if (parts == null) {
+                return;
+            }
+            if (!(parts instanceof List)) {
+                parts.forEach(this::spreadTo);
+            } else if (isParallel && to - from > BATCH_SIZE) {
+                final var middle = (from + to) >>> 1;
+                invokeAll(
+                    new SpreadStyleTask(parts, from, middle, style, condition, depth, true),
+                    new SpreadStyleTask(parts, middle, to, style, condition, depth, true)
+                );
+            } else {
+                final var list = (List<? extends DocumentItem>) parts;
+                for (var i = from; i < to; i++) {
+                    spreadTo(list.get(i));
+                }
+            }
+        }
+
+        private void spreadTo(DocumentItem part) {
+            if (part.getStyle() == null
+                && (condition == null || part.getClass().isAssignableFrom(condition.getClazz()))
+            ) {
+                part.setStyle(style);
+            }
+            if (depth - 1 != 0 && part instanceof CompositionPart<?, ?>) {
+                new SpreadStyleTask(style, condition, depth - 1, isParallel)
+                    .spreadToParts((CompositionPart<?, ?>) part);
+            }
+        }
+
+        /**
+         * Spreads the style to parts of the composition read by {@link CompositionPart#getParts()},
+         * or by its own {@link CompositionPart#spreadStyleToParts(Style, int)} if it is overridden
+         *
+         * @param compositionPart composition
+         */
+        private void spreadToParts(CompositionPart<?, ?> compositionPart) {
+            if (hasOwnSpreadStyle.get(compositionPart.getClass())) {
+                try {
+                    compositionPart.spreadStyleToParts(style, depth);
+                } catch (CloneNotSupportedException e) {
+                    throw new IllegalStateException(e);
+                }
+            } else {
+                new SpreadStyleTask(compositionPart.getParts(), this).compute();
+            }
+        }
+    }
+
     private void checkPartsForAppend() {
         if (this.parts == null) {
             this.parts = new ArrayList<>();
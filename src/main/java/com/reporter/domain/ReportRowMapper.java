@@ -1,47 +1,131 @@
 package com.reporter.domain;
 
+import com.google.common.base.Throwables;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.BeanUtils;
+import org.springframework.beans.BeanWrapper;
 import org.springframework.beans.NotWritablePropertyException;
 import org.springframework.beans.PropertyAccessorFactory;
 import org.springframework.beans.TypeMismatchException;
 import org.springframework.jdbc.core.RowMapper;
 import org.springframework.jdbc.support.JdbcUtils;
+import org.springframework.util.ClassUtils;
 
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
 
+/**
+ * Maps rows to instances of the class by column names,
+ * column names, value types and setters are resolved on the first row of a query
+ * and reused for the following rows. Values not fitting the setter and nested properties
+ * are written through {@link BeanWrapper}
+ */
 public class ReportRowMapper<T> implements RowMapper<T> {
 
     private static final Logger log = LoggerFactory.getLogger(ReportRowMapper.class);
+    private static final MethodType SETTER_TYPE = MethodType.methodType(void.class, Object.class, Object.class);
+
     private final Class<T> clazz;
 
+    /**
+     * Plan of the current query
+     */
+    private volatile ColumnPlan plan;
+
+    /**
+     * Column names, value types and setters of a query,
+     * the type is null if its class is not found, the setter is null if the property has no plain setter
+     */
+    private static class ColumnPlan {
+        private final String[] columns;
+        private final Class<?>[] columnTypes;
+        private final MethodHandle[] setters;
+        private final Class<?>[] setterTypes;
+        private final boolean[] isPrimitiveSetter;
+
+        private ColumnPlan(int columnCount) {
+            columns = new String[columnCount];
+            columnTypes = new Class<?>[columnCount];
+            setters = new MethodHandle[columnCount];
+            setterTypes = new Class<?>[columnCount];
+            isPrimitiveSetter = new boolean[columnCount];
+        }
+    }
+
     public ReportRowMapper(Class<T> clazz) {
         this.clazz = clazz;
     }
 
     @Override
     public T mapRow(ResultSet rs, int rowNum) throws SQLException {
+        var currentPlan = plan;
+        if (rowNum == 0 || currentPlan == null) {
+            currentPlan = resolveColumnPlan(rs.getMetaData());
+            plan = currentPlan;
+        }
         final T mappedObject = BeanUtils.instantiateClass(this.clazz);
-        final var beanWrapper = PropertyAccessorFactory.forBeanPropertyAccess(mappedObject);
-        beanWrapper.setAutoGrowNestedPaths(true);
-        final var meta_data = rs.getMetaData();
-        final var columnCount = meta_data.getColumnCount();
-        for (int index = 1; index <= columnCount; index++) {
+        BeanWrapper beanWrapper = null;
+        for (int i = 0; i < currentPlan.columns.length; i++) {
+            final var columnType = currentPlan.columnTypes[i];
+            if (columnType == null) {
+                continue;
+            }
+            final Object value = JdbcUtils.getResultSetValue(rs, i + 1, columnType);
+            final var setter = currentPlan.setters[i];
+            if (setter != null
+                && (value == null ? !currentPlan.isPrimitiveSetter[i] : currentPlan.setterTypes[i].isInstance(value))
+            ) {
+                try {
+                    setter.invokeExact((Object) mappedObject, value);
+                } catch (Throwable t) {
+                    Throwables.throwIfUnchecked(t);
+                    throw new IllegalStateException(t);
+                }
+            } else {
+                if (beanWrapper == null) {
+                    beanWrapper = PropertyAccessorFactory.forBeanPropertyAccess(mappedObject);
+                    beanWrapper.setAutoGrowNestedPaths(true);
+                }
+                try {
+                    beanWrapper.setPropertyValue(currentPlan.columns[i], value);
+                } catch (TypeMismatchException | NotWritablePropertyException e) {
+                    log.error("Error on map row", e);
+                }
+            }
+        }
+        return mappedObject;
+    }
+
+    private ColumnPlan resolveColumnPlan(ResultSetMetaData metaData) throws SQLException {
+        final var lookup = MethodHandles.lookup();
+        final var columnPlan = new ColumnPlan(metaData.getColumnCount());
+        for (int i = 0; i < columnPlan.columns.length; i++) {
+            final var column = JdbcUtils.lookupColumnName(metaData, i + 1);
+            columnPlan.columns[i] = column;
             try {
-                final String column = JdbcUtils.lookupColumnName(meta_data, index);
-                final Object value = JdbcUtils.getResultSetValue(
-                        rs,
-                        index,
-                        Class.forName(meta_data.getColumnClassName(index))
-                );
-                beanWrapper.setPropertyValue(column, value);
-            } catch (TypeMismatchException | NotWritablePropertyException | ClassNotFoundException e) {
+                columnPlan.columnTypes[i] = Class.forName(metaData.getColumnClassName(i + 1));
+            } catch (ClassNotFoundException e) {
                 log.error("Error on map row", e);
+                continue;
+            }
+            final var pd = BeanUtils.getPropertyDescriptor(clazz, column);
+            final var writeMethod = pd != null ? pd.getWriteMethod() : null;
+            if (writeMethod != null && writeMethod.trySetAccessible()) {
+                try {
+                    columnPlan.setters[i] = lookup.unreflect(writeMethod).asType(SETTER_TYPE);
+                    final var parameterType = writeMethod.getParameterTypes()[0];
+                    columnPlan.setterTypes[i] = ClassUtils.resolvePrimitiveIfNecessary(parameterType);
+                    columnPlan.isPrimitiveSetter[i] = parameterType.isPrimitive();
+                } catch (IllegalAccessException e) {
+                    log.debug("resolveColumnPlan: property {} is written through BeanWrapper", column, e);
+                }
             }
         }
-        return mappedObject;
+        return columnPlan;
     }
 }
-
@@ -2,21 +2,33 @@ package com.reporter.domain;
 
 import com.reporter.formatter.FormatterVisitor;
 import com.google.common.base.MoreObjects;
-import org.springframework.beans.PropertyAccessorFactory;
+import com.google.common.base.Throwables;
+import com.google.common.collect.AbstractIterator;
+import com.google.common.collect.Iterators;
+import com.google.common.collect.PeekingIterator;
 
 import java.beans.BeanInfo;
 import java.beans.IntrospectionException;
 import java.beans.Introspector;
-import java.beans.PropertyDescriptor;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
 import java.lang.reflect.Proxy;
 import java.util.ArrayList;
-import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Consumer;
-import java.util.stream.Collectors;
+import java.util.function.IntFunction;
+import java.util.stream.Stream;
 
 /**
  * Class for mapping {@link ReportTable#dataItems} to an intermediate representation of a table,
@@ -24,17 +36,45 @@ import java.util.stream.Collectors;
  * if {@link ReportTable#isTableHeaderRowFromData} is set:
  * TableHeaderRow is formed from {@link ReportTable#dataItems} data
  * <p>
+ * data items from a stream, an iterator or pages are mapped to rows lazily while the table is visited
  */
 
 public class ReportTable extends Table {
 
+    /**
+     * Getters of data item classes by header alias names
+     */
+    private static final ClassValue<Map<List<String>, MethodHandle[]>> accessorPlans =
+        new ClassValue<>() {
+            @Override
+            protected Map<List<String>, MethodHandle[]> computeValue(Class<?> type) {
+                return new ConcurrentHashMap<>();
+            }
+        };
+
     protected boolean isTableHeaderRowFromData;
+
+    /**
+     * Flag to refill one row and its cells for every lazily mapped data item
+     * instead of creating new ones, visitors must not keep references to visited rows or cells
+     */
+    protected boolean isFlyweight;
     /**
      * List(T) T or class instance with public fields
      * or interface @Repository methods (proxy class)
      */
     private List<?> dataItems;
 
+    /**
+     * Lazy data items, mapped to rows while the table is visited
+     */
+    private Iterator<?> dataSource;
+
+    /**
+     * Stream of {@link ReportTable#dataSource} to close after the visit
+     */
+    private Stream<?> dataStream;
+
     public static ReportTable create() {
         return new ReportTable();
     }
@@ -59,51 +99,209 @@ public class ReportTable extends Table {
                     )
             );
             if (optItem.isPresent()) {
-                final Class<?> actualClass = optItem.get().getClass();
-                for (final var docItem : dataItems.stream().filter(Objects::nonNull).collect(Collectors.toList())) {
-                    final var tr = TableRow.create();
-                    if (Proxy.isProxyClass(actualClass) && actualClass.getInterfaces().length > 0) {
-                        final Class<?> baseInterface = actualClass.getInterfaces()[0];
-                        final BeanInfo info = Introspector.getBeanInfo(baseInterface);
-                        final var namesMethods =
-                            Arrays.stream(info.getPropertyDescriptors())
-                                .collect(
-                                    Collectors.toMap(
-                                        PropertyDescriptor::getName,
-                                        PropertyDescriptor::getReadMethod
-                                    )
-                                );
-                        for (final var name : tableHeaderAliasNames) {
-                            if (namesMethods.containsKey(name) || isTableHeaderRowFromData) {
-                                final var value = namesMethods.get(name).invoke(docItem);
-                                tr.addPart(TableCell.create(value != null ? value.toString() : ""));
-                            } else {
-                                tr.addPart(TableCell.create(""));
-                            }
-                        }
-                    } else {
-                        final var propAcc = PropertyAccessorFactory.forDirectFieldAccess(docItem);
-                        final var fieldNames =
-                            Arrays.stream(actualClass.getDeclaredFields())
-                                .map(Field::getName)
-                                .collect(Collectors.toList());
-                        for (final var name : tableHeaderAliasNames) {
-                            if (fieldNames.contains(name) || isTableHeaderRowFromData) {
-                                final var value = propAcc.getPropertyValue(name);
-                                tr.addPart(TableCell.create(value != null ? value.toString() : ""));
-                            } else {
-                                tr.addPart(TableCell.create(""));
-                            }
-                        }
+                final var accessors = new RowAccessors(optItem.get().getClass(), tableHeaderAliasNames);
+                for (final var docItem : dataItems) {
+                    if (docItem != null) {
+                        addPart(toTableRow(docItem, accessors));
                     }
-                    addPart(tr);
                 }
             }
+        } else if (dataSource != null) {
+            final var source = dataSource;
+            final var stream = dataStream;
+            dataSource = null;
+            dataStream = null;
+            try {
+                visitLazily(visitor, source);
+            } finally {
+                if (stream != null) {
+                    stream.close();
+                }
+            }
+            return this;
         }
         super.accept(visitor);
         return this;
     }
 
+    /**
+     * Visits the table mapping data items to rows while the visitor reads them,
+     * the items are neither kept nor collected
+     *
+     * @param visitor visitor
+     * @param source  data items
+     * @throws Throwable when the class cannot be introspected or visiting fails
+     */
+    private void visitLazily(FormatterVisitor visitor, Iterator<?> source) throws Throwable {
+        final PeekingIterator<?> items = Iterators.peekingIterator(Iterators.filter(source, Objects::nonNull));
+        final Optional<?> optItem = items.hasNext() ? Optional.of(items.peek()) : Optional.empty();
+        final var previousParts = parts;
+        if (isTableHeaderRowFromData) {
+            tableHeaderRow = generateTableHeaderRow(optItem);
+        }
+        if (optItem.isPresent()) {
+            final var tableHeaderAliasNames = new ArrayList<String>();
+            getTableHeaderRow().ifPresent(
+                thr -> thr
+                    .getParts()
+                    .forEach(
+                        hc -> tableHeaderAliasNames.add(hc.getAliasName())
+                    )
+            );
+            final var accessors = new RowAccessors(optItem.get().getClass(), tableHeaderAliasNames);
+            final var flyweightRow = isFlyweight ? toTableRow(optItem.get(), accessors) : null;
+            setParts(
+                streamParts(
+                    Iterators.transform(items, docItem -> {
+                        try {
+                            return
+                                flyweightRow != null
+                                    ? fillTableRow(flyweightRow, docItem, accessors)
+                                    : toTableRow(docItem, accessors);
+                        } catch (Throwable t) {
+                            Throwables.throwIfUnchecked(t);
+                            throw new IllegalStateException(t);
+                        }
+                    })
+                )
+            );
+        }
+        try {
+            super.accept(visitor);
+        } finally {
+            // Only the lazy parts installed here are dropped, rows added by the caller are kept
+            parts = previousParts;
+        }
+    }
+
+    private static TableRow fillTableRow(TableRow tr, Object docItem, RowAccessors accessors) throws Throwable {
+        final var getters = accessors.getGetters(docItem.getClass());
+        var i = 0;
+        for (final var cell : tr.getParts()) {
+            final var getter = getters[i++];
+            final var value = getter != null ? (Object) getter.invokeExact(docItem) : null;
+            cell.setText(value != null ? value.toString() : "");
+        }
+        return tr;
+    }
+
+    private static TableRow toTableRow(Object docItem, RowAccessors accessors) throws Throwable {
+        final var getters = accessors.getGetters(docItem.getClass());
+        final var tr = TableRow.create();
+        tr.setParts(new ArrayList<>(getters.length));
+        for (final var getter : getters) {
+            final var value = getter != null ? (Object) getter.invokeExact(docItem) : null;
+            tr.addPart(TableCell.create(value != null ? value.toString() : ""));
+        }
+        return tr;
+    }
+
+    /**
+     * Getters of the columns for data items of one table.
+     * Columns are the properties of the first item's class,
+     * values are read by the accessor plan of each item's own class, so lists may mix subclasses and proxies
+     */
+    private static class RowAccessors {
+        private final Class<?> columnClass;
+        private final List<String> aliasNames;
+        private final MethodHandle[] columnGetters;
+        private Class<?> lastClass;
+        private MethodHandle[] lastGetters;
+
+        private RowAccessors(Class<?> columnClass, List<String> aliasNames) throws Throwable {
+            this.columnClass = columnClass;
+            this.aliasNames = aliasNames;
+            this.columnGetters = getAccessorPlan(columnClass, aliasNames).clone();
+            if (!Proxy.isProxyClass(columnClass)) {
+                // Columns are the fields declared by the class, inherited fields are read only for subclasses
+                final var declaredNames = new HashSet<String>();
+                for (final var field : columnClass.getDeclaredFields()) {
+                    declaredNames.add(field.getName());
+                }
+                for (int i = 0; i < columnGetters.length; i++) {
+                    if (!declaredNames.contains(aliasNames.get(i))) {
+                        columnGetters[i] = null;
+                    }
+                }
+            }
+            this.lastClass = columnClass;
+            this.lastGetters = columnGetters;
+        }
+
+        private MethodHandle[] getGetters(Class<?> itemClass) throws Throwable {
+            if (itemClass != lastClass) {
+                final var itemGetters = getAccessorPlan(itemClass, aliasNames);
+                final var getters = new MethodHandle[itemGetters.length];
+                for (int i = 0; i < getters.length; i++) {
+                    getters[i] = columnGetters[i] != null ? itemGetters[i] : null;
+                }
+                lastClass = itemClass;
+                lastGetters = itemClass == columnClass ? columnGetters : getters;
+            }
+            return lastGetters;
+        }
+    }
+
+    /**
+     * Returns getters of the class for the header alias names, computed once per class and alias list
+     * and shared by all rows and reports. Fields are looked up through superclasses.
+     * The getter is null if the class has no such property
+     *
+     * @param actualClass class of data items
+     * @param aliasNames  header alias names
+     * @return getters of type (Object)Object in order of alias names
+     * @throws Throwable when the class cannot be introspected
+     */
+    static MethodHandle[] getAccessorPlan(Class<?> actualClass, List<String> aliasNames) throws Throwable {
+        final var plans = accessorPlans.get(actualClass);
+        var plan = plans.get(aliasNames);
+        if (plan == null) {
+            plan = createAccessorPlan(actualClass, aliasNames);
+            plans.putIfAbsent(List.copyOf(aliasNames), plan);
+        }
+        return plan;
+    }
+
+    private static MethodHandle[] createAccessorPlan(Class<?> actualClass, List<String> aliasNames) throws Throwable {
+        final var lookup = MethodHandles.lookup();
+        final var getterType = MethodType.methodType(Object.class, Object.class);
+        final var plan = new MethodHandle[aliasNames.size()];
+        if (Proxy.isProxyClass(actualClass) && actualClass.getInterfaces().length > 0) {
+            final Class<?> baseInterface = actualClass.getInterfaces()[0];
+            final BeanInfo info = Introspector.getBeanInfo(baseInterface);
+            final var namesMethods = new HashMap<String, Method>();
+            for (final var pd : info.getPropertyDescriptors()) {
+                namesMethods.put(pd.getName(), pd.getReadMethod());
+            }
+            for (int i = 0; i < plan.length; i++) {
+                final var method = namesMethods.get(aliasNames.get(i));
+                if (method != null) {
+                    method.trySetAccessible();
+                    plan[i] = lookup.unreflect(method).asType(getterType);
+                }
+            }
+        } else {
+            final var namesFields = new HashMap<String, Field>();
+            for (var type = actualClass; type != null; type = type.getSuperclass()) {
+                for (final var field : type.getDeclaredFields()) {
+                    namesFields.putIfAbsent(field.getName(), field);
+                }
+            }
+            for (int i = 0; i < plan.length; i++) {
+                final var field = namesFields.get(aliasNames.get(i));
+                if (field != null) {
+                    field.trySetAccessible();
+                    plan[i] =
+                        Modifier.isStatic(field.getModifiers())
+                            ? MethodHandles.dropArguments(lookup.unreflectGetter(field), 0, Object.class)
+                                .asType(getterType)
+                            : lookup.unreflectGetter(field).asType(getterType);
+                }
+            }
+        }
+        return plan;
+    }
+
     @SuppressWarnings("OptionalUsedAsFieldOrParameterType")
     private TableHeaderRow generateTableHeaderRow(Optional<?> optItem) throws IntrospectionException {
         if (optItem.isPresent()) {
@@ -140,14 +338,70 @@ public class ReportTable extends Table {
 
     public <T> ReportTable addDataList(List<T> docItems) {
         this.dataItems = docItems;
+        this.dataSource = null;
+        this.dataStream = null;
         return this;
     }
 
+    /**
+     * Sets data items read lazily while the table is visited, the stream is closed after the visit
+     *
+     * @param docItems stream of data items
+     * @param <T>      type of data items
+     * @return ReportTable
+     */
+    public <T> ReportTable addDataStream(Stream<T> docItems) {
+        addDataIterator(docItems.iterator());
+        this.dataStream = docItems;
+        return this;
+    }
+
+    /**
+     * Sets data items read lazily while the table is visited
+     *
+     * @param docItems iterator over data items
+     * @param <T>      type of data items
+     * @return ReportTable
+     */
+    public <T> ReportTable addDataIterator(Iterator<T> docItems) {
+        this.dataItems = null;
+        this.dataSource = docItems;
+        this.dataStream = null;
+        return this;
+    }
+
+    /**
+     * Sets data items fetched page by page while the table is visited,
+     * pages are requested by number starting from 0 until an empty page, e.g. from a Spring Data repository:
+     * {@code page -> repository.findAll(PageRequest.of(page, 1000))}
+     *
+     * @param pageFetcher function returning the page of data items by its number
+     * @param <T>         type of data items
+     * @return ReportTable
+     */
+    public <T> ReportTable addDataPages(IntFunction<? extends Iterable<T>> pageFetcher) {
+        final Iterator<Iterator<T>> pages = new AbstractIterator<>() {
+            private int page;
+
+            @Override
+            protected Iterator<T> computeNext() {
+                final var items = pageFetcher.apply(page++);
+                if (items == null) {
+                    return endOfData();
+                }
+                final var iterator = items.iterator();
+                return iterator.hasNext() ? iterator : endOfData();
+            }
+        };
+        return addDataIterator(Iterators.concat(pages));
+    }
+
     @Override
     public String toString() {
         return
             MoreObjects.toStringHelper(this)
                 .add("isTableHeaderRowFromData", isTableHeaderRowFromData)
+                .add("isFlyweight", isFlyweight)
                 .add("dataItems", dataItems)
                 .add("parent", super.toString())
                 .toString();
@@ -157,6 +411,15 @@ public class ReportTable extends Table {
         return dataItems;
     }
 
+    public boolean isFlyweight() {
+        return isFlyweight;
+    }
+
+    public ReportTable setFlyweight(boolean isFlyweight) {
+        this.isFlyweight = isFlyweight;
+        return this;
+    }
+
     public boolean isTableHeaderRowFromData() {
         return isTableHeaderRowFromData;
     }
@@ -6,7 +6,9 @@ import com.google.common.base.MoreObjects;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.Iterator;
 import java.util.Optional;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.stream.Stream;
 
 /**
@@ -78,6 +80,51 @@ public class Table extends CompositionPart<Table, TableRow> {
         return super.addParts(docItems);
     }
 
+    /**
+     * Wraps lazily produced rows into single-pass parts of the table,
+     * rows are indexed and counted while iterated
+     *
+     * @param rows lazy iterator over rows
+     * @return Iterable that can be iterated only once
+     */
+    protected Iterable<TableRow> streamParts(Iterator<TableRow> rows) {
+        final var iterator = new Iterator<TableRow>() {
+            @Override
+            public boolean hasNext() {
+                return rows.hasNext();
+            }
+
+            @Override
+            public TableRow next() {
+                final var tr = rows.next();
+                tr.setRowIndex(rowCount);
+                rowCount += 1;
+                colCount = Integer.max(colCount, tr.getCellCount());
+                return tr;
+            }
+        };
+        final var isIterated = new AtomicBoolean();
+        return () -> {
+            if (isIterated.getAndSet(true)) {
+                throw new IllegalStateException("Rows of streaming table can be iterated only once");
+            }
+            return iterator;
+        };
+    }
+
+    /**
+     * Replaces the rows by lazily produced ones, see {@link Table#streamParts(Iterator)},
+     * the table is counted from its first streamed row
+     *
+     * @param rows lazy iterator over rows
+     * @return Table
+     */
+    public Table setStreamedParts(Iterator<TableRow> rows) {
+        rowCount = 0;
+        colCount = 0;
+        return setParts(streamParts(rows));
+    }
+
     @Override
     public String toString() {
         return
@@ -98,6 +145,14 @@ public class Table extends CompositionPart<Table, TableRow> {
         return this;
     }
 
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    public int getColCount() {
+        return colCount;
+    }
+
     public String getLabel() {
         return label;
     }
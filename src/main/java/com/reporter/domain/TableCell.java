@@ -4,9 +4,12 @@ import com.reporter.domain.styles.TextStyle;
 import com.reporter.formatter.FormatterVisitor;
 import com.google.common.base.MoreObjects;
 
+import java.math.BigDecimal;
+import java.util.function.Function;
+
 /**
  * Table cell,
- * contains data in text form,
+ * contains data in text form or as a native value converted to text on demand,
  * base {@link TextStyle style} text
  * and customIndex (default parent-row index)
  */
@@ -14,6 +17,23 @@ public class TableCell extends TextItem<TableCell> {
 
     protected int customIndex;
 
+    /**
+     * Native value of the cell (e.g. read from a database),
+     * {@link TableCell#getText()} converts it to text on the first call
+     */
+    protected Object value;
+
+    /**
+     * Conversion of {@link TableCell#value} to text, null - the default one
+     */
+    protected Function<Object, String> valueFormat;
+
+    /**
+     * Text converted from {@link TableCell#value}, published safely
+     * since one document may be rendered from several threads
+     */
+    private volatile String valueText;
+
     public static TableCell create(String text) {
         return new TableCell().setText(text);
     }
@@ -27,10 +47,29 @@ public class TableCell extends TextItem<TableCell> {
         return this;
     }
 
+    @Override
+    public String getText() {
+        if (text != null || value == null) {
+            return text;
+        }
+        var converted = valueText;
+        if (converted == null) {
+            converted =
+                valueFormat != null
+                    ? valueFormat.apply(value)
+                    : value instanceof BigDecimal
+                        ? ((BigDecimal) value).toPlainString()
+                        : value.toString();
+            valueText = converted;
+        }
+        return converted;
+    }
+
     @Override
     public String toString() {
         return MoreObjects.toStringHelper(this)
             .add("customIndex", customIndex)
+            .add("value", value)
             .add("parent", super.toString())
             .toString();
     }
@@ -43,4 +82,27 @@ public class TableCell extends TextItem<TableCell> {
         this.customIndex = customIndex;
         return this;
     }
+
+    public Object getValue() {
+        return value;
+    }
+
+    public TableCell setValue(Object value) {
+        return setValue(value, null);
+    }
+
+    /**
+     * Sets the native value converted to text by the format on demand
+     *
+     * @param value       native value
+     * @param valueFormat conversion of the value to text, null - the default one
+     * @return TableCell
+     */
+    public TableCell setValue(Object value, Function<Object, String> valueFormat) {
+        this.value = value;
+        this.valueFormat = valueFormat;
+        this.valueText = null;
+        this.text = null;
+        return this;
+    }
 }
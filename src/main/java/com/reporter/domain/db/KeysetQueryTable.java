@@ -0,0 +1,315 @@
+package com.reporter.domain.db;
+
+import com.google.common.base.MoreObjects;
+import com.reporter.domain.TableRow;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.support.JdbcUtils;
+import org.springframework.jdbc.support.MetaDataAccessException;
+import org.springframework.util.StringUtils;
+
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * {@link QueryTable} reading the query in keyset-paginated chunks
+ * ({@code where key > :last order by key} limited by the {@link PageLimit} of the database)
+ * instead of one long-running cursor.
+ * Each chunk is a separate short statement, so no snapshot or lock is held for the whole export,
+ * and a chunk failed with {@link TransientDataAccessException} is retried from the last read key.
+ * The key column must be a unique non-null identifier present among the columns of the query
+ */
+public class KeysetQueryTable extends QueryTable {
+    private static final Logger log = LoggerFactory.getLogger(KeysetQueryTable.class);
+
+    public static final String LAST_KEY_PARAMETER = "keysetLastKey";
+    public static final String PAGE_SIZE_PARAMETER = "keysetPageSize";
+
+    /**
+     * Plain or quoted identifier
+     */
+    private static final String IDENTIFIER = "(?:[A-Za-z_][A-Za-z0-9_$]*|\"[^\"]+\"|`[^`]+`|\\[[^\\]]+])";
+    private static final Pattern KEY_COLUMN_PART_PATTERN = Pattern.compile(IDENTIFIER);
+    private static final Pattern KEY_COLUMN_PATTERN = Pattern.compile(IDENTIFIER + "(?:\\." + IDENTIFIER + ")*");
+
+    /**
+     * Clause limiting the rows of one chunk
+     */
+    public enum PageLimit {
+        LIMIT("limit :" + PAGE_SIZE_PARAMETER),
+        FETCH_FIRST("fetch first :" + PAGE_SIZE_PARAMETER + " rows only"),
+        OFFSET_FETCH("offset 0 rows fetch next :" + PAGE_SIZE_PARAMETER + " rows only");
+
+        private final String clause;
+
+        PageLimit(String clause) {
+            this.clause = clause;
+        }
+
+        public String getClause() {
+            return clause;
+        }
+
+        /**
+         * Returns the clause supported by the database
+         *
+         * @param databaseProductName product name from the database metadata
+         * @return PageLimit
+         */
+        public static PageLimit of(String databaseProductName) {
+            final var name = databaseProductName == null ? "" : databaseProductName.toLowerCase(Locale.ROOT);
+            if (name.contains("sql server")) {
+                return OFFSET_FETCH;
+            } else if (name.contains("oracle") || name.contains("db2") || name.contains("derby")) {
+                return FETCH_FIRST;
+            }
+            return LIMIT;
+        }
+    }
+
+    /**
+     * Unique column ordering the rows, as written in the query,
+     * a qualified name refers to the column of the query by its last part
+     */
+    protected String keyColumn;
+
+    /**
+     * Clause limiting the chunk, detected from the database metadata if not set
+     */
+    protected PageLimit pageLimit;
+
+    protected int pageSize = 10_000;
+
+    /**
+     * Number of consecutive retries of a failed chunk
+     */
+    protected int maxRetries = 3;
+
+    public static KeysetQueryTable create() {
+        return new KeysetQueryTable();
+    }
+
+    public static KeysetQueryTable create(NamedParameterJdbcTemplate namedParameterJdbcTemplate) {
+        final var table = new KeysetQueryTable();
+        table.setNamedParameterJdbcTemplate(namedParameterJdbcTemplate);
+        return table;
+    }
+
+    @Override
+    protected Stream<TableRow> openRows() {
+        if (!StringUtils.hasText(keyColumn)) {
+            throw new IllegalArgumentException("Key column is empty");
+        }
+        if (!KEY_COLUMN_PATTERN.matcher(keyColumn).matches()) {
+            throw new IllegalArgumentException(String.format("Key column is not an identifier: \"%s\"", keyColumn));
+        }
+        if (pageSize <= 0) {
+            throw new IllegalArgumentException("Page size must be positive");
+        }
+        if (pageLimit == null) {
+            pageLimit = detectPageLimit();
+        }
+        final var pages = new PageIterator();
+        return StreamSupport
+            .stream(Spliterators.spliteratorUnknownSize(pages, Spliterator.ORDERED | Spliterator.NONNULL), false)
+            .onClose(pages::closePage);
+    }
+
+    /**
+     * Wraps the query of the table into a query of one chunk
+     *
+     * @param isFirstPage whether no key is read yet
+     * @return chunk query
+     */
+    protected String pageQuery(boolean isFirstPage) {
+        final var source = StringUtils.trimTrailingCharacter(query.trim(), ';');
+        final var outerKeyColumn = lastPart(keyColumn);
+        return
+            "select * from (" + source + ") keyset_page" +
+                (isFirstPage ? "" : " where " + outerKeyColumn + " > :" + LAST_KEY_PARAMETER) +
+                " order by " + outerKeyColumn +
+                " " + pageLimit.getClause();
+    }
+
+    /**
+     * Detects the clause limiting the chunk from the product name of the database
+     *
+     * @return PageLimit
+     */
+    private PageLimit detectPageLimit() {
+        final var dataSource = namedParameterJdbcTemplate.getJdbcTemplate().getDataSource();
+        if (dataSource == null) {
+            return PageLimit.LIMIT;
+        }
+        try {
+            final String productName = JdbcUtils.extractDatabaseMetaData(
+                dataSource,
+                DatabaseMetaData::getDatabaseProductName
+            );
+            final var detected = PageLimit.of(productName);
+            log.debug("detectPageLimit: {} for database {}", detected, productName);
+            return detected;
+        } catch (MetaDataAccessException e) {
+            log.warn("detectPageLimit: database is not detected, {} is used", PageLimit.LIMIT, e);
+            return PageLimit.LIMIT;
+        }
+    }
+
+    /**
+     * Returns the last part of the qualified identifier, the column as seen outside the query
+     *
+     * @param identifier identifier matching {@link KeysetQueryTable#KEY_COLUMN_PATTERN}
+     * @return unqualified identifier
+     */
+    private static String lastPart(String identifier) {
+        final var matcher = KEY_COLUMN_PART_PATTERN.matcher(identifier);
+        String part = identifier;
+        while (matcher.find()) {
+            part = matcher.group();
+        }
+        return part;
+    }
+
+    /**
+     * Iterates rows chunk by chunk, the next chunk is queried when the current one is read
+     */
+    private class PageIterator implements Iterator<TableRow> {
+        private final String keyLabel = lastPart(keyColumn).replaceAll("[\"`\\[\\]]", "");
+        private Stream<TableRow> page;
+        private Iterator<TableRow> pageRows;
+        private Object lastKey;
+        private int rowNum;
+        private int pageRowCount;
+        private int failures;
+        private boolean isLastPage;
+
+        @Override
+        public boolean hasNext() {
+            while (true) {
+                try {
+                    if (pageRows == null) {
+                        if (isLastPage) {
+                            return false;
+                        }
+                        openPage();
+                    }
+                    if (pageRows.hasNext()) {
+                        return true;
+                    }
+                } catch (TransientDataAccessException e) {
+                    closePage();
+                    if (++failures > maxRetries) {
+                        throw e;
+                    }
+                    log.warn("hasNext: chunk after key {} failed, retry {} of {}", lastKey, failures, maxRetries, e);
+                    continue;
+                }
+                closePage();
+                failures = 0;
+                isLastPage = pageRowCount < pageSize;
+            }
+        }
+
+        @Override
+        public TableRow next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            return pageRows.next();
+        }
+
+        private void openPage() {
+            final var params = new MapSqlParameterSource(mapSqlParameterSource.getValues())
+                .addValue(PAGE_SIZE_PARAMETER, pageSize);
+            final var isFirstPage = rowNum == 0;
+            if (!isFirstPage) {
+                params.addValue(LAST_KEY_PARAMETER, lastKey);
+            }
+            pageRowCount = 0;
+            page = executeQuery(pageQuery(isFirstPage), params, this::mapPageRow);
+            pageRows = page.iterator();
+        }
+
+        private TableRow mapPageRow(ResultSet rs, int pageRowNum) throws SQLException {
+            final var tableRow = mapRow(rs, rowNum);
+            lastKey = rs.getObject(keyLabel);
+            if (lastKey == null) {
+                // A null key can't bound the next chunk, it would restart from the first one
+                throw new IllegalStateException(
+                    String.format("Key column \"%s\" is null in row %d", keyColumn, rowNum)
+                );
+            }
+            rowNum++;
+            pageRowCount++;
+            return tableRow;
+        }
+
+        private void closePage() {
+            if (page != null) {
+                page.close();
+                page = null;
+                pageRows = null;
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        return
+            MoreObjects.toStringHelper(this)
+                .add("keyColumn", keyColumn)
+                .add("pageLimit", pageLimit)
+                .add("pageSize", pageSize)
+                .add("maxRetries", maxRetries)
+                .add("parent", super.toString())
+                .toString();
+    }
+
+    public String getKeyColumn() {
+        return keyColumn;
+    }
+
+    public KeysetQueryTable setKeyColumn(String keyColumn) {
+        this.keyColumn = keyColumn;
+        return this;
+    }
+
+    public PageLimit getPageLimit() {
+        return pageLimit;
+    }
+
+    public KeysetQueryTable setPageLimit(PageLimit pageLimit) {
+        this.pageLimit = pageLimit;
+        return this;
+    }
+
+    public int getPageSize() {
+        return pageSize;
+    }
+
+    public KeysetQueryTable setPageSize(int pageSize) {
+        this.pageSize = pageSize;
+        return this;
+    }
+
+    public int getMaxRetries() {
+        return maxRetries;
+    }
+
+    public KeysetQueryTable setMaxRetries(int maxRetries) {
+        this.maxRetries = maxRetries;
+        return this;
+    }
+}
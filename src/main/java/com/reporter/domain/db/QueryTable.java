@@ -3,31 +3,57 @@ package com.reporter.domain.db;
 import com.google.common.base.MoreObjects;
 import com.reporter.domain.*;
 import com.reporter.formatter.FormatterVisitor;
-import org.springframework.jdbc.core.RowCallbackHandler;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.core.PreparedStatementCreatorFactory;
+import org.springframework.jdbc.core.RowMapper;
 import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
 import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterUtils;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.jdbc.support.JdbcUtils;
 import org.springframework.util.StringUtils;
 
+import java.math.BigDecimal;
+import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
-import java.util.HashMap;
-import java.util.concurrent.atomic.AtomicReference;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.stream.Stream;
 
 /**
  * Class for mapping a SQL query to an intermediate representation of a table
  * <p>
  * if {@link QueryTable#isTableHeaderRowFromData} is set:
- * TableHeaderRow is formed from database data
+ * TableHeaderRow is formed from metadata of the same result set
+ * that provides the rows, so the query is executed once
+ * <p>
+ * if {@link QueryTable#isStreaming} is set:
+ * rows are not stored in the table, each row of the query cursor
+ * is converted and passed to the visitor as soon as it is read
  * <p>
  */
 
 public class QueryTable extends Table {
+    private static final Logger log = LoggerFactory.getLogger(QueryTable.class);
+
 
     /**
-     * Class stores names and labels of columns in ResultSetMetaData as HashMap
+     * Class stores names and labels of columns in ResultSetMetaData in order of columns
      */
-    public static class ColumnMetaDataMap extends HashMap<String, String> {
+    public static class ColumnMetaDataMap extends LinkedHashMap<String, String> {
         public static ColumnMetaDataMap create(ResultSetMetaData resultSetMetaData, String query) throws SQLException {
             if (resultSetMetaData == null) {
                 throw new IllegalStateException(String.format("There is no metadata for query: \"%s\"", query));
@@ -53,8 +79,63 @@ public class QueryTable extends Table {
 
     protected boolean isTableHeaderRowFromData;
 
+    /**
+     * Flag to visit rows directly from the open query cursor
+     * without collecting them into {@link QueryTable#parts}
+     */
+    protected boolean isStreaming;
+
+    /**
+     * Flag to refill one row and its cells for every row in streaming mode
+     * instead of creating new ones, visitors must not keep references to visited rows or cells
+     */
+    protected boolean isFlyweight;
+
+    private TableRow flyweightRow;
+    private TableCell[] flyweightCells;
+
     protected String query;
 
+    /**
+     * Flag to grow the fetch size during the query
+     * from the observed width of rows, limited by {@link QueryTable#fetchSizeMemoryBudget}
+     * and {@link QueryTable#maxFetchSize}
+     */
+    protected boolean isAdaptiveFetchSize;
+
+    /**
+     * Approximate memory in bytes that rows of one fetch may occupy in adaptive mode
+     */
+    protected long fetchSizeMemoryBudget = 16L * 1024 * 1024;
+
+    protected int maxFetchSize = 10_000;
+
+    private int adaptedFetchSize;
+    private int nextAdaptRow;
+    private long sampledRowBytes;
+    private long sampledRows;
+
+    /**
+     * Rows of the query started by {@link QueryTable#prefetch(Executor)},
+     * added to the table only when it is visited
+     */
+    private CompletableFuture<List<TableRow>> prefetched;
+
+    /**
+     * Result set column indexes of header cells, resolved on the first row of a query
+     */
+    private int[] columnIndexes;
+
+    /**
+     * Conversions of values to text by the JDBC types of {@link QueryTable#columnIndexes}
+     */
+    private List<Function<Object, String>> columnFormats;
+
+    /**
+     * Counter of metadata queries of this table avoided by forming the header from the first row
+     */
+    private final AtomicLong savedRoundTrips = new AtomicLong();
+
     public static QueryTable create() {
         return new QueryTable();
     }
@@ -67,37 +148,297 @@ public class QueryTable extends Table {
     public QueryTable accept(FormatterVisitor visitor) throws Throwable {
         if (!StringUtils.hasText(query)) {
             throw new IllegalArgumentException("Query is empty");
+        } else if (prefetched != null) {
+            final var future = prefetched;
+            prefetched = null;
+            try {
+                future.join().forEach(this::addPart);
+            } catch (CompletionException e) {
+                throw e.getCause();
+            }
         } else if (namedParameterJdbcTemplate != null) {
-            if (isTableHeaderRowFromData) {
-                final var metaData = new AtomicReference<>(new ColumnMetaDataMap());
-                namedParameterJdbcTemplate.getJdbcTemplate().setMaxRows(1);
-                final RowCallbackHandler rsLambdaMeta =
-                    (ResultSet rs) -> metaData.set(
-                        ColumnMetaDataMap.create(
-                            rs.getMetaData(),
-                            query
-                        )
-                    );
-                namedParameterJdbcTemplate.query(query, mapSqlParameterSource, rsLambdaMeta);
-                tableHeaderRow = generateTableHeaderRow(metaData.get());
+            if (isStreaming) {
+                try (final var rows = queryRows()) {
+                    setParts(streamParts(startRows(rows)));
+                    try {
+                        super.accept(visitor);
+                    } finally {
+                        parts = null;
+                    }
+                }
+                return this;
             }
-
-            namedParameterJdbcTemplate.getJdbcTemplate().setMaxRows(0);
-            namedParameterJdbcTemplate.getJdbcTemplate().setFetchSize(fetchSize);
-            final RowCallbackHandler rsLambdaWork =
-                (rs) ->
-                    addPart(
-                        resultSetToTableRow(
-                            rs,
-                            getTableHeaderRow().orElse(null)
-                        )
-                    );
-            namedParameterJdbcTemplate.query(query, mapSqlParameterSource, rsLambdaWork);
+            fetchRows();
         }
         super.accept(visitor);
         return this;
     }
 
+    /**
+     * Starts the query of the table on the executor before the table is visited,
+     * {@link QueryTable#accept(FormatterVisitor)} then waits for the rows instead of querying.
+     * Streaming tables are queried while visited
+     *
+     * @param executor executor running the query
+     * @return QueryTable
+     */
+    public QueryTable prefetch(Executor executor) {
+        if (prefetched == null
+            && !isStreaming
+            && namedParameterJdbcTemplate != null
+            && StringUtils.hasText(query)
+        ) {
+            prefetched = CompletableFuture.supplyAsync(this::queryAllRows, executor);
+        }
+        return this;
+    }
+
+    /**
+     * Cancels the query started by {@link QueryTable#prefetch(Executor)} and drops its rows,
+     * e.g. when the document failed before the table was visited, so the next visit queries again
+     *
+     * @return QueryTable
+     */
+    public QueryTable cancelPrefetch() {
+        if (prefetched != null) {
+            prefetched.cancel(false);
+            prefetched = null;
+        }
+        return this;
+    }
+
+    /**
+     * Starts queries of all {@link QueryTable QueryTables} nested in the item concurrently,
+     * see {@link QueryTable#prefetch(Executor)}
+     *
+     * @param item     document or its part
+     * @param executor executor running the queries
+     */
+    public static void prefetchAll(DocumentItem item, Executor executor) {
+        if (item instanceof QueryTable) {
+            ((QueryTable) item).prefetch(executor);
+        } else if (item instanceof CompositionPart && !(item instanceof Table)) {
+            for (final var part : ((CompositionPart<?, ?>) item).getParts()) {
+                prefetchAll(part, executor);
+            }
+        }
+    }
+
+    /**
+     * Cancels queries of all {@link QueryTable QueryTables} nested in the item,
+     * see {@link QueryTable#cancelPrefetch()}
+     *
+     * @param item document or its part
+     */
+    public static void cancelPrefetchAll(DocumentItem item) {
+        if (item instanceof QueryTable) {
+            ((QueryTable) item).cancelPrefetch();
+        } else if (item instanceof CompositionPart && !(item instanceof Table)) {
+            for (final var part : ((CompositionPart<?, ?>) item).getParts()) {
+                cancelPrefetchAll(part);
+            }
+        }
+    }
+
+    /**
+     * Collects all rows of the query into {@link QueryTable#parts}
+     */
+    private void fetchRows() {
+        queryAllRows().forEach(this::addPart);
+    }
+
+    /**
+     * Reads all rows of the query
+     *
+     * @return rows
+     */
+    private List<TableRow> queryAllRows() {
+        final var tableRows = new ArrayList<TableRow>();
+        try (final var rows = queryRows()) {
+            startRows(rows).forEachRemaining(tableRows::add);
+        }
+        return tableRows;
+    }
+
+    /**
+     * Resets the state of the previous query and opens rows of the table
+     *
+     * @return open stream of rows
+     */
+    private Stream<TableRow> queryRows() {
+        columnIndexes = null;
+        columnFormats = null;
+        flyweightRow = null;
+        flyweightCells = null;
+        adaptedFetchSize = fetchSize;
+        nextAdaptRow = fetchSize;
+        sampledRowBytes = 0;
+        sampledRows = 0;
+        return openRows();
+    }
+
+    /**
+     * Opens rows of the table, subclasses may split the query into several executions
+     * mapping rows with {@link QueryTable#mapRow(ResultSet, int)} numbered through all of them
+     *
+     * @return open stream of rows
+     */
+    protected Stream<TableRow> openRows() {
+        return executeQuery(query, mapSqlParameterSource, this::mapRow);
+    }
+
+    /**
+     * Executes the named parameter query with statement settings of this table,
+     * rows are mapped while the stream is read
+     *
+     * @param sql       named parameter query
+     * @param params    query parameters
+     * @param rowMapper row mapper
+     * @return open stream of rows
+     */
+    protected Stream<TableRow> executeQuery(String sql, SqlParameterSource params, RowMapper<TableRow> rowMapper) {
+        return namedParameterJdbcTemplate.getJdbcTemplate().queryForStream(
+            createStatementCreator(sql, params),
+            this::applyStatementSettings,
+            rowMapper
+        );
+    }
+
+    /**
+     * Returns iterator over the rows,
+     * the header is formed beforehand if {@link QueryTable#isTableHeaderRowFromData} is set
+     *
+     * @param rows open stream of rows
+     * @return iterator over rows
+     */
+    private Iterator<TableRow> startRows(Stream<TableRow> rows) {
+        final var iterator = rows.iterator();
+        if (isTableHeaderRowFromData) {
+            tableHeaderRow = TableHeaderRow.create();
+            // Reading the first row forms the header from the metadata of the same result set
+            iterator.hasNext();
+        }
+        return iterator;
+    }
+
+    /**
+     * Creates statement creator for the named parameter query,
+     * the shared template is not reconfigured
+     *
+     * @param sql    named parameter query
+     * @param source query parameters
+     * @return prepared statement creator
+     */
+    private PreparedStatementCreator createStatementCreator(String sql, SqlParameterSource source) {
+        final var parsedSql = NamedParameterUtils.parseSqlStatement(sql);
+        final var sqlToUse = NamedParameterUtils.substituteNamedParameters(parsedSql, source);
+        final var params = NamedParameterUtils.buildValueArray(parsedSql, source, null);
+        final var declaredParameters = NamedParameterUtils.buildSqlParameterList(parsedSql, source);
+        final var factory = new PreparedStatementCreatorFactory(sqlToUse, declaredParameters);
+        if (rsTypeScroll != null) {
+            factory.setResultSetType(rsTypeScroll);
+        }
+        if (rsTypeConcurrency != null) {
+            factory.setUpdatableResults(rsTypeConcurrency == ResultSet.CONCUR_UPDATABLE);
+        }
+        return factory.newPreparedStatementCreator(params);
+    }
+
+    /**
+     * Applies settings of this table to the statement of a single execution,
+     * so tables sharing one {@link NamedParameterJdbcTemplate} don't affect each other
+     *
+     * @param ps prepared statement
+     * @throws SQLException when the driver rejects a setting
+     */
+    private void applyStatementSettings(PreparedStatement ps) throws SQLException {
+        ps.setMaxRows(0);
+        ps.setFetchSize(adaptedFetchSize);
+    }
+
+    /**
+     * Returns the number of queries of this table whose {@link TableHeaderRow} was formed
+     * from the first row of the data pass instead of a separate metadata query
+     *
+     * @return saved database round-trips
+     */
+    public long getSavedRoundTrips() {
+        return savedRoundTrips.get();
+    }
+
+    /**
+     * Maps the current row of the result set,
+     * the first row also forms the header if {@link QueryTable#isTableHeaderRowFromData} is set
+     *
+     * @param rs     result set
+     * @param rowNum number of the current row
+     * @return table row
+     * @throws SQLException when reading the result set
+     */
+    protected TableRow mapRow(ResultSet rs, int rowNum) throws SQLException {
+        if (rowNum == 0 && isTableHeaderRowFromData) {
+            tableHeaderRow = generateTableHeaderRow(ColumnMetaDataMap.create(rs.getMetaData(), query));
+            final var saved = savedRoundTrips.incrementAndGet();
+            log.debug("mapRow: header formed from the first row, saved round-trips - {}", saved);
+        }
+        final var tableRow = resultSetToTableRow(rs, tableHeaderRow).setRowIndex(rowNum);
+        if (isAdaptiveFetchSize) {
+            adaptFetchSize(rs, tableRow, rowNum);
+        }
+        return tableRow;
+    }
+
+    /**
+     * Grows the fetch size of the open result set at the end of each fetch,
+     * so that the next fetch of rows of the observed average width fits {@link QueryTable#fetchSizeMemoryBudget}
+     *
+     * @param rs       result set
+     * @param tableRow mapped row
+     * @param rowNum   number of the current row
+     * @throws SQLException when the driver rejects the fetch size
+     */
+    private void adaptFetchSize(ResultSet rs, TableRow tableRow, int rowNum) throws SQLException {
+        sampledRowBytes += estimateRowBytes(tableRow);
+        sampledRows++;
+        if (rowNum + 1 < nextAdaptRow) {
+            return;
+        }
+        final var averageRowBytes = Math.max(1, sampledRowBytes / sampledRows);
+        final var target = (int) Math.min(maxFetchSize, fetchSizeMemoryBudget / averageRowBytes);
+        if (target > adaptedFetchSize) {
+            rs.setFetchSize(target);
+            log.debug("adaptFetchSize: fetch size grown from {} to {}, average row bytes - {}",
+                adaptedFetchSize, target, averageRowBytes);
+            adaptedFetchSize = target;
+        }
+        nextAdaptRow = rowNum + 1 + adaptedFetchSize;
+    }
+
+    /**
+     * Roughly estimates the memory occupied by values of the row
+     *
+     * @param tableRow table row
+     * @return estimated size in bytes
+     */
+    private static long estimateRowBytes(TableRow tableRow) {
+        long bytes = 32;
+        for (final var cell : tableRow.getParts()) {
+            final var value = cell.getValue();
+            if (value == null) {
+                bytes += 8;
+            } else if (value instanceof CharSequence) {
+                bytes += 40 + 2L * ((CharSequence) value).length();
+            } else if (value instanceof byte[]) {
+                bytes += 16 + ((byte[]) value).length;
+            } else if (value instanceof Number || value instanceof Boolean) {
+                bytes += 16;
+            } else {
+                bytes += 32;
+            }
+        }
+        return bytes;
+    }
+
     private TableHeaderRow generateTableHeaderRow(ColumnMetaDataMap columnMetaDataMap) {
         final var thr = TableHeaderRow.create();
         columnMetaDataMap
@@ -112,28 +453,132 @@ public class QueryTable extends Table {
         return thr;
     }
 
+    /**
+     * Converts the current row of the result set to a table row,
+     * cells keep native JDBC values converted to text on demand by the JDBC type of the column
+     *
+     * @param rs  result set
+     * @param thr table header defining columns
+     * @return table row
+     * @throws SQLException when reading the result set
+     */
     private TableRow resultSetToTableRow(ResultSet rs, TableHeaderRow thr) throws SQLException {
+        if (thr != null && columnIndexes == null) {
+            columnIndexes = resolveColumnIndexes(rs, thr);
+            columnFormats = resolveColumnFormats(rs.getMetaData(), columnIndexes);
+        }
+        if (thr != null && isStreaming && isFlyweight) {
+            if (flyweightCells == null) {
+                flyweightRow = TableRow.create();
+                flyweightRow.setParts(new ArrayList<>(columnIndexes.length));
+                flyweightCells = new TableCell[columnIndexes.length];
+                for (int i = 0; i < flyweightCells.length; i++) {
+                    flyweightCells[i] = TableCell.create();
+                    flyweightRow.addPart(flyweightCells[i]);
+                }
+            }
+            for (int i = 0; i < flyweightCells.length; i++) {
+                flyweightCells[i].setValue(JdbcUtils.getResultSetValue(rs, columnIndexes[i]), columnFormats.get(i));
+            }
+            return flyweightRow;
+        }
         final var tableRow = TableRow.create();
         if (thr != null) {
-            int i = 0;
-            for (final var hc : thr.getParts()) {
-                i++;
-                final var tableCell = TableCell.create();
-                if (hc.getAliasName().isEmpty()) {
-                    tableCell.setText(rs.getObject(i, String.class));
-                } else {
-                    final var columnName =
-                        isTableHeaderRowFromData
-                        ? hc.getText()
-                        : hc.getAliasName();
-                    tableCell.setText(rs.getObject(columnName, String.class));
-                }
-                tableRow.addPart(tableCell);
+            tableRow.setParts(new ArrayList<>(columnIndexes.length));
+            for (int i = 0; i < columnIndexes.length; i++) {
+                tableRow.addPart(
+                    TableCell
+                        .create()
+                        .setValue(JdbcUtils.getResultSetValue(rs, columnIndexes[i]), columnFormats.get(i))
+                );
             }
         }
         return tableRow;
     }
 
+    /**
+     * Resolves conversions of values to text once per query by the JDBC types of the columns,
+     * the text matches the string conversion of the driver
+     *
+     * @param metaData result set metadata
+     * @param indexes  result set column indexes
+     * @return conversions in order of indexes
+     * @throws SQLException when reading the metadata
+     */
+    private static List<Function<Object, String>> resolveColumnFormats(ResultSetMetaData metaData, int[] indexes)
+        throws SQLException {
+        final var formats = new ArrayList<Function<Object, String>>(indexes.length);
+        for (final var index : indexes) {
+            formats.add(toTextFormat(metaData.getColumnType(index)));
+        }
+        return formats;
+    }
+
+    private static Function<Object, String> toTextFormat(int jdbcType) {
+        switch (jdbcType) {
+            case Types.BINARY:
+            case Types.VARBINARY:
+            case Types.LONGVARBINARY:
+            case Types.BLOB:
+                return QueryTable::formatBinary;
+            case Types.TIMESTAMP:
+                return QueryTable::formatTimestamp;
+            case Types.NUMERIC:
+            case Types.DECIMAL:
+                return QueryTable::formatDecimal;
+            default:
+                return String::valueOf;
+        }
+    }
+
+    private static String formatBinary(Object value) {
+        if (!(value instanceof byte[])) {
+            return String.valueOf(value);
+        }
+        final var bytes = (byte[]) value;
+        final var hex = new StringBuilder(bytes.length * 2);
+        for (final var b : bytes) {
+            hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        return hex.toString();
+    }
+
+    private static String formatTimestamp(Object value) {
+        final var text = String.valueOf(value);
+        // Timestamp#toString keeps a zero fraction that the driver omits
+        return value instanceof Timestamp && text.endsWith(".0") ? text.substring(0, text.length() - 2) : text;
+    }
+
+    private static String formatDecimal(Object value) {
+        return value instanceof BigDecimal ? ((BigDecimal) value).toPlainString() : String.valueOf(value);
+    }
+
+    /**
+     * Resolves the result set column index for each header cell once per query
+     *
+     * @param rs  result set
+     * @param thr table header
+     * @return column indexes in order of header cells
+     * @throws SQLException when a column is not found
+     */
+    private int[] resolveColumnIndexes(ResultSet rs, TableHeaderRow thr) throws SQLException {
+        final var indexes = new int[thr.getCellCount()];
+        int i = 0;
+        for (final var hc : thr.getParts()) {
+            if (hc.getAliasName().isEmpty()) {
+                indexes[i] = i + 1;
+            } else {
+                final var columnName =
+                    isTableHeaderRowFromData
+                    ? hc.getText()
+                    : hc.getAliasName();
+                indexes[i] = rs.findColumn(columnName);
+            }
+            i++;
+        }
+        return indexes;
+    }
+
     @Override
     public QueryTable setTableHeaderRow(TableHeaderRow tableHeaderRow) {
         super.setTableHeaderRow(tableHeaderRow);
@@ -148,8 +593,13 @@ public class QueryTable extends Table {
                 .add("fetchSize", fetchSize)
                 .add("rsTypeScroll", rsTypeScroll)
                 .add("rsTypeConcurrency", rsTypeConcurrency)
+                .add("isAdaptiveFetchSize", isAdaptiveFetchSize)
+                .add("fetchSizeMemoryBudget", fetchSizeMemoryBudget)
+                .add("maxFetchSize", maxFetchSize)
                 .add("mapSqlParameterSource", mapSqlParameterSource)
                 .add("isTableHeaderRowFromData", isTableHeaderRowFromData)
+                .add("isStreaming", isStreaming)
+                .add("isFlyweight", isFlyweight)
                 .add("query", query)
                 .add("parent", super.toString())
                 .toString();
@@ -173,6 +623,42 @@ public class QueryTable extends Table {
         return this;
     }
 
+    public boolean isAdaptiveFetchSize() {
+        return isAdaptiveFetchSize;
+    }
+
+    public QueryTable setAdaptiveFetchSize(boolean isAdaptiveFetchSize) {
+        this.isAdaptiveFetchSize = isAdaptiveFetchSize;
+        return this;
+    }
+
+    public long getFetchSizeMemoryBudget() {
+        return fetchSizeMemoryBudget;
+    }
+
+    public QueryTable setFetchSizeMemoryBudget(long fetchSizeMemoryBudget) {
+        this.fetchSizeMemoryBudget = fetchSizeMemoryBudget;
+        return this;
+    }
+
+    public int getMaxFetchSize() {
+        return maxFetchSize;
+    }
+
+    public QueryTable setMaxFetchSize(int maxFetchSize) {
+        this.maxFetchSize = maxFetchSize;
+        return this;
+    }
+
+    /**
+     * Returns the fetch size in effect at the end of the last query
+     *
+     * @return fetch size
+     */
+    public int getAdaptedFetchSize() {
+        return adaptedFetchSize;
+    }
+
     public Integer getRsTypeScroll() {
         return rsTypeScroll;
     }
@@ -209,6 +695,24 @@ public class QueryTable extends Table {
         return this;
     }
 
+    public boolean isFlyweight() {
+        return isFlyweight;
+    }
+
+    public QueryTable setFlyweight(boolean isFlyweight) {
+        this.isFlyweight = isFlyweight;
+        return this;
+    }
+
+    public boolean isStreaming() {
+        return isStreaming;
+    }
+
+    public QueryTable setStreaming(boolean isStreaming) {
+        this.isStreaming = isStreaming;
+        return this;
+    }
+
     public String getQuery() {
         return query;
     }
@@ -17,6 +17,10 @@ public class BorderStyle implements Cloneable {
      * Thickness or line style
      */
     protected BorderWeight weight = BorderWeight.NONE;
+    /**
+     * Frozen border can not be changed, see {@link Style#freeze()}
+     */
+    protected boolean isFrozen;
 
     public static BorderStyle create() {
         return new BorderStyle();
@@ -40,6 +44,7 @@ public class BorderStyle implements Cloneable {
     }
 
     public BorderStyle setColor(Color color) {
+        checkNotFrozen();
         this.color = color;
         return this;
     }
@@ -49,6 +54,7 @@ public class BorderStyle implements Cloneable {
     }
 
     public BorderStyle setWeight(BorderWeight weight) {
+        checkNotFrozen();
         this.weight = weight;
         return this;
     }
@@ -74,8 +80,41 @@ public class BorderStyle implements Cloneable {
         return Objects.hashCode(color, weight);
     }
 
+    /**
+     * Returns a mutable copy, also of a frozen border
+     */
     @Override
     public BorderStyle clone() throws CloneNotSupportedException  {
-        return (BorderStyle) super.clone();
+        final var borderStyle = (BorderStyle) super.clone();
+        borderStyle.isFrozen = false;
+        return borderStyle;
+    }
+
+    /**
+     * Returns the frozen copy of the border for a frozen {@link LayoutStyle}
+     *
+     * @return frozen border
+     */
+    public BorderStyle freeze() {
+        if (isFrozen) {
+            return this;
+        }
+        try {
+            final var borderStyle = clone();
+            borderStyle.isFrozen = true;
+            return borderStyle;
+        } catch (CloneNotSupportedException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    public boolean isFrozen() {
+        return isFrozen;
+    }
+
+    protected void checkNotFrozen() {
+        if (isFrozen) {
+            throw new UnsupportedOperationException("Frozen border can not be changed: " + this);
+        }
     }
 }
@@ -78,6 +78,14 @@ public class LayoutStyle extends Style {
                 .setBorderBottom(borderBottom.clone());
     }
 
+    @Override
+    protected void freezeParts() {
+        borderTop = borderTop != null ? borderTop.freeze() : null;
+        borderLeft = borderLeft != null ? borderLeft.freeze() : null;
+        borderRight = borderRight != null ? borderRight.freeze() : null;
+        borderBottom = borderBottom != null ? borderBottom.freeze() : null;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) {
@@ -88,6 +96,9 @@ public class LayoutStyle extends Style {
         }
 
         final LayoutStyle that = (LayoutStyle) o;
+        if (isFrozenAndDiffers(that)) {
+            return false;
+        }
 
         return
             Objects.equal(this.width, that.width)
@@ -106,6 +117,9 @@ public class LayoutStyle extends Style {
 
     @Override
     public int hashCode() {
+        if (isFrozen) {
+            return frozenHash;
+        }
         return
             Objects
                 .hashCode(
@@ -149,6 +163,7 @@ public class LayoutStyle extends Style {
     }
 
     public LayoutStyle setWidth(int width) {
+        checkNotFrozen();
         this.width = width;
         return this;
     }
@@ -158,6 +173,7 @@ public class LayoutStyle extends Style {
     }
 
     public LayoutStyle setAutoWidth(boolean autoWidth) {
+        checkNotFrozen();
         this.autoWidth = autoWidth;
         return this;
     }
@@ -167,6 +183,7 @@ public class LayoutStyle extends Style {
     }
 
     public LayoutStyle setShrinkToFit(boolean shrinkToFit) {
+        checkNotFrozen();
         this.shrinkToFit = shrinkToFit;
         return this;
     }
@@ -176,6 +193,7 @@ public class LayoutStyle extends Style {
     }
 
     public LayoutStyle setBorderTop(BorderStyle borderTop) {
+        checkNotFrozen();
         this.borderTop = borderTop;
         return this;
     }
@@ -185,6 +203,7 @@ public class LayoutStyle extends Style {
     }
 
     public LayoutStyle setBorderLeft(BorderStyle borderLeft) {
+        checkNotFrozen();
         this.borderLeft = borderLeft;
         return this;
     }
@@ -194,6 +213,7 @@ public class LayoutStyle extends Style {
     }
 
     public LayoutStyle setBorderRight(BorderStyle borderRight) {
+        checkNotFrozen();
         this.borderRight = borderRight;
         return this;
     }
@@ -203,6 +223,7 @@ public class LayoutStyle extends Style {
     }
 
     public LayoutStyle setBorderBottom(BorderStyle borderBottom) {
+        checkNotFrozen();
         this.borderBottom = borderBottom;
         return this;
     }
@@ -212,6 +233,7 @@ public class LayoutStyle extends Style {
     }
 
     public LayoutStyle setFillBackgroundColor(Color fillBackgroundColor) {
+        checkNotFrozen();
         this.fillBackgroundColor = fillBackgroundColor;
         return this;
     }
@@ -221,6 +243,7 @@ public class LayoutStyle extends Style {
     }
 
     public LayoutStyle setFillForegroundColor(Color fillForegroundColor) {
+        checkNotFrozen();
         this.fillForegroundColor = fillForegroundColor;
         return this;
     }
@@ -230,6 +253,7 @@ public class LayoutStyle extends Style {
     }
 
     public LayoutStyle setFillPattern(FillPattern fillPattern) {
+        checkNotFrozen();
         this.fillPattern = fillPattern;
         return this;
     }
@@ -239,6 +263,7 @@ public class LayoutStyle extends Style {
     }
 
     public LayoutStyle setHorAlignment(HorAlignment horAlignment) {
+        checkNotFrozen();
         this.horAlignment = horAlignment;
         return this;
     }
@@ -248,6 +273,7 @@ public class LayoutStyle extends Style {
     }
 
     public LayoutStyle setVertAlignment(VertAlignment vertAlignment) {
+        checkNotFrozen();
         this.vertAlignment = vertAlignment;
         return this;
     }
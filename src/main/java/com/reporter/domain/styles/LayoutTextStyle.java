@@ -30,6 +30,12 @@ public class LayoutTextStyle extends Style {
             .setLayoutStyle(layoutStyle != null ? layoutStyle.clone() : null);
     }
 
+    @Override
+    protected void freezeParts() {
+        layoutStyle = layoutStyle != null ? layoutStyle.freeze() : null;
+        textStyle = textStyle != null ? textStyle.freeze() : null;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) {
@@ -40,6 +46,9 @@ public class LayoutTextStyle extends Style {
         }
 
         final LayoutTextStyle that = (LayoutTextStyle) o;
+        if (isFrozenAndDiffers(that)) {
+            return false;
+        }
 
         return
             Objects.equal(this.layoutStyle, that.layoutStyle)
@@ -48,6 +57,9 @@ public class LayoutTextStyle extends Style {
 
     @Override
     public int hashCode() {
+        if (isFrozen) {
+            return frozenHash;
+        }
         return Objects.hashCode(layoutStyle, textStyle);
     }
 
@@ -70,11 +82,13 @@ public class LayoutTextStyle extends Style {
     }
 
     public LayoutTextStyle setLayoutStyle(LayoutStyle layoutStyle) {
+        checkNotFrozen();
         this.layoutStyle = layoutStyle;
         return this;
     }
 
     public LayoutTextStyle setTextStyle(TextStyle textStyle) {
+        checkNotFrozen();
         this.textStyle = textStyle;
         return this;
     }
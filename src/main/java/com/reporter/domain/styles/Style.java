@@ -2,7 +2,8 @@ package com.reporter.domain.styles;
 
 import com.reporter.domain.DocumentItem;
 import com.google.common.base.MoreObjects;
-import com.google.common.base.Objects;
+import com.google.common.collect.Interner;
+import com.google.common.collect.Interners;
 
 /**
  * Style class of {@link DocumentItem},
@@ -10,10 +11,22 @@ import com.google.common.base.Objects;
  */
 
 public class Style implements Cloneable {
+    /**
+     * Canonical frozen styles, see {@link Style#freeze()}
+     */
+    private static final Interner<Style> frozenStyles = Interners.newWeakInterner();
     /**
      * Style applicability condition
      */
     protected StyleCondition condition;
+    /**
+     * Frozen style can not be changed, see {@link Style#freeze()}
+     */
+    protected boolean isFrozen;
+    /**
+     * Hash code of the frozen style, computed once
+     */
+    protected int frozenHash;
 
     @Override
     public String toString() {
@@ -28,6 +41,7 @@ public class Style implements Cloneable {
      */
     @SuppressWarnings("unchecked")
     public <T extends Style> T removeCondition() {
+        checkNotFrozen();
         this.condition = null;
         return (T) this;
     }
@@ -38,12 +52,71 @@ public class Style implements Cloneable {
 
     @SuppressWarnings("unchecked")
     public <T extends Style> T setCondition(StyleCondition condition) {
+        checkNotFrozen();
         this.condition = condition;
         return (T) this;
     }
 
+    /**
+     * Returns a mutable copy, also of a frozen style
+     */
     public Style clone() throws CloneNotSupportedException {
-        return ((Style) super.clone()).setCondition(condition);
+        final var style = (Style) super.clone();
+        style.isFrozen = false;
+        style.frozenHash = 0;
+        return style.setCondition(condition);
+    }
+
+    /**
+     * Returns the canonical frozen copy of the style without condition:
+     * equal styles are frozen to the same instance with a precomputed hash code,
+     * so they are fast cache keys which can not be corrupted by later changes.
+     * Setters of a frozen style throw {@link UnsupportedOperationException}, use {@link Style#clone()} to change it.
+     *
+     * @param <T> style type
+     * @return frozen style
+     */
+    @SuppressWarnings("unchecked")
+    public <T extends Style> T freeze() {
+        if (isFrozen) {
+            return (T) this;
+        }
+        try {
+            final var style = clone();
+            style.condition = null;
+            style.freezeParts();
+            style.frozenHash = style.hashCode();
+            style.isFrozen = true;
+            final var canonical = frozenStyles.intern(style);
+            return (T) (canonical.getClass() == style.getClass() ? canonical : style);
+        } catch (CloneNotSupportedException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Freezes nested styles of a style being frozen
+     */
+    protected void freezeParts() {
+        /**/
+    }
+
+    public boolean isFrozen() {
+        return isFrozen;
+    }
+
+    /**
+     * @param style compared style
+     * @return true if both styles are frozen and differ, without comparing fields
+     */
+    protected boolean isFrozenAndDiffers(Style style) {
+        return isFrozen && style.isFrozen && frozenHash != style.frozenHash;
+    }
+
+    protected void checkNotFrozen() {
+        if (isFrozen) {
+            throw new UnsupportedOperationException("Frozen style can not be changed: " + this);
+        }
     }
 
 }
@@ -2,9 +2,13 @@ package com.reporter.domain.styles;
 
 import com.google.common.base.MoreObjects;
 import com.google.common.base.Objects;
+import com.reporter.domain.TableCell;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.Set;
 import java.util.function.Predicate;
 
 /**
@@ -24,6 +28,30 @@ public class StyleCondition {
      * Object styling condition
      */
     protected Predicate<?> predicate;
+    /**
+     * Item properties the predicate depends on, null - the predicate may depend on the whole item.
+     * Resolution of styles with declared inputs is memoized by {@link StyleService}.
+     */
+    protected Set<Input> inputs;
+
+    /**
+     * Item properties a predicate may be declared to depend on
+     */
+    public enum Input {
+        /**
+         * Parity of {@link TableCell#getCustomIndex()} as {@code customIndex % 2},
+         * so negative odd indices (-1) are told apart from positive ones
+         */
+        CUSTOM_INDEX_PARITY,
+        /**
+         * Column index of the table cell
+         */
+        COLUMN_INDEX,
+        /**
+         * Identity of the item style
+         */
+        ITEM_STYLE
+    }
 
     public static StyleCondition create(Class<?> clazz, Predicate<?> condition) {
         return new StyleCondition().setPredicate(condition).setClazz(clazz);
@@ -66,7 +94,32 @@ public class StyleCondition {
     }
 
     public StyleCondition negate() {
-        return StyleCondition.create(clazz, predicate.negate());
+        final var condition = StyleCondition.create(clazz, predicate.negate());
+        condition.inputs = inputs;
+        return condition;
+    }
+
+    /**
+     * Declares that the predicate result is determined by the item class and the given inputs only,
+     * so the resolved style can be reused for items with the same inputs.
+     *
+     * @param inputs item properties the predicate depends on, none - the predicate depends on the class only
+     * @return this condition
+     */
+    public StyleCondition dependsOn(Input... inputs) {
+        this.inputs = inputs.length == 0 ? EnumSet.noneOf(Input.class) : EnumSet.copyOf(Arrays.asList(inputs));
+        return this;
+    }
+
+    /**
+     * @return true if the condition result may be memoized by its inputs
+     */
+    public boolean isMemoizable() {
+        return predicate == null || inputs != null;
+    }
+
+    public Set<Input> getInputs() {
+        return inputs;
     }
 
     public Class<?> getClazz() {
@@ -93,6 +146,7 @@ public class StyleCondition {
             MoreObjects.toStringHelper(this)
                 .add("clazz", clazz)
                 .add("predicate", predicate)
+                .add("inputs", inputs)
                 .toString();
     }
 
@@ -109,11 +163,12 @@ public class StyleCondition {
 
         return
             Objects.equal(this.clazz, that.clazz) &&
-                Objects.equal(this.predicate, that.predicate);
+                Objects.equal(this.predicate, that.predicate) &&
+                Objects.equal(this.inputs, that.inputs);
     }
 
     @Override
     public int hashCode() {
-        return Objects.hashCode(clazz, predicate);
+        return Objects.hashCode(clazz, predicate, inputs);
     }
 }
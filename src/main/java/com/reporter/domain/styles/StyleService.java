@@ -4,14 +4,19 @@ import com.google.common.base.MoreObjects;
 import com.reporter.domain.Document;
 import com.reporter.domain.DocumentItem;
 import com.reporter.domain.FontService;
+import com.reporter.domain.TableCell;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.text.DecimalFormat;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.EnumSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * The class stores styles.
@@ -28,7 +33,40 @@ public abstract class StyleService implements StyleApplier {
     /**
      * List of registered styles
      */
-    protected final List<Style> styles = new ArrayList<>();
+    protected final List<Style> styles = new StyleList();
+    /**
+     * Column index passed for items whose column is not known
+     */
+    public static final int UNKNOWN_COLUMN = -1;
+    /**
+     * Maximum number of memoized resolutions and merges, the memo is cleared when exceeded
+     */
+    private static final int MAX_MEMOIZED = 4096;
+    /**
+     * Buckets of registered styles by item class. Rebuilt when the styles list is modified.
+     */
+    private final Map<Class<?>, StyleBucket> styleIndex = new ConcurrentHashMap<>();
+    /**
+     * Modification count of styles the index was built for
+     */
+    private int indexedModCount;
+    /**
+     * Resolved styles by item class and the inputs declared by conditions of its bucket
+     */
+    private final Map<List<Object>, Optional<Style>> resolvedStyles = new ConcurrentHashMap<>();
+    /**
+     * Canonical frozen copies of the styles passed to {@link StyleService#mergeStyles} by their identity
+     */
+    private final Map<Identity, Style> frozenInputs = new ConcurrentHashMap<>();
+    /**
+     * Canonical frozen copies of the styles passed to {@link StyleService#mergeStyles} by their value,
+     * so equal style instances of different items are frozen once
+     */
+    private final Map<Style, Style> frozenValues = new ConcurrentHashMap<>();
+    /**
+     * Merged frozen styles by canonical frozen copies of the registered and the item style
+     */
+    private final Map<MergeKey, Style> mergedStyles = new ConcurrentHashMap<>();
     /**
      * Number representation format
      */
@@ -45,18 +83,174 @@ public abstract class StyleService implements StyleApplier {
      * @return first style with condition that item matches
      */
     public Optional<Style> extractStyleFor(DocumentItem item) {
-        return styles
-            .stream()
-            .filter(s -> {
-                if (s.getCondition() != null) {
-                    final var passCondition = s.getCondition().test(item);
-                    final var itemClass = item.getClass();
-                    final var conditionClass = s.getCondition().getClazz();
-                    return passCondition && itemClass.isAssignableFrom(conditionClass);
+        return extractStyleFor(item, getStyleBucket(item.getClass()));
+    }
+
+    /**
+     * Same as {@link StyleService#extractStyleFor(DocumentItem)} memoized by the item class
+     * and the inputs declared by {@link StyleCondition#dependsOn}, when all applicable conditions declare them.
+     *
+     * @param item        the object on which to test the conditions of styles.
+     * @param columnIndex column index of the table cell or {@link StyleService#UNKNOWN_COLUMN}
+     * @return first style with condition that item matches
+     */
+    public Optional<Style> extractStyleFor(DocumentItem item, int columnIndex) {
+        final var bucket = getStyleBucket(item.getClass());
+        return extractStyleFor(item, bucket, getMemoKey(bucket, item, columnIndex));
+    }
+
+    /**
+     * Resolves the style of a table cell: the registered style for the item
+     * merged with the item style by {@link StyleUtils#merge}, the item style is not changed.
+     * Merged styles are interned and shared, they are frozen (see {@link Style#freeze()}).
+     *
+     * @param item        table cell
+     * @param columnIndex column index of the table cell or {@link StyleService#UNKNOWN_COLUMN}
+     * @return item style merged with the registered style, or the registered style if the item has none
+     * @throws Exception when merging styles
+     */
+    public Style resolveStyleFor(DocumentItem item, int columnIndex) throws Exception {
+        final var optStyle = extractStyleFor(item, columnIndex);
+        final var style = item.getStyle();
+        if (optStyle.isEmpty()) {
+            return style;
+        }
+        return style == null ? optStyle.get() : mergeStyles(optStyle.get(), style);
+    }
+
+    /**
+     * Returns the interned result of {@link StyleUtils#merge}, so repeated combinations cost one lookup.
+     * Merged results are keyed by the canonical frozen copies of the styles compared by identity,
+     * a style instance is frozen once up to {@link StyleService#clearResolvedStyles()}.
+     *
+     * @param styleFrom registered style
+     * @param styleTo   item style
+     * @return frozen merged style
+     * @throws Exception when merging styles
+     */
+    public Style mergeStyles(Style styleFrom, Style styleTo) throws Exception {
+        final var frozenFrom = freezeInput(styleFrom);
+        final var frozenTo = freezeInput(styleTo);
+        if (frozenTo.equals(frozenFrom)) {
+            // The item style itself may be changed later, its canonical frozen copy is returned
+            return frozenTo;
+        }
+        final var key = new MergeKey(frozenFrom, frozenTo);
+        var merged = mergedStyles.get(key);
+        if (merged == null) {
+            merged = StyleUtils.merge(styleFrom, styleTo).freeze();
+            if (mergedStyles.size() >= MAX_MEMOIZED) {
+                mergedStyles.clear();
+            }
+            mergedStyles.put(key, merged);
+        }
+        return merged;
+    }
+
+    /**
+     * Clears memoized resolutions, e.g. before a new document when item styles may have been changed.
+     */
+    public void clearResolvedStyles() {
+        resolvedStyles.clear();
+        frozenInputs.clear();
+        frozenValues.clear();
+    }
+
+    /**
+     * @return canonical frozen copy of the style, memoized by the style instance
+     */
+    private Style freezeInput(Style style) {
+        if (style.isFrozen()) {
+            return style;
+        }
+        final var key = new Identity(style);
+        var frozen = frozenInputs.get(key);
+        if (frozen == null) {
+            frozen = frozenValues.get(style);
+            if (frozen == null || frozen.getClass() != style.getClass()) {
+                frozen = style.freeze();
+                if (frozenValues.size() >= MAX_MEMOIZED) {
+                    frozenValues.clear();
                 }
-                return true;
-            })
-            .findFirst();
+                frozenValues.put(frozen, frozen);
+            }
+            if (frozenInputs.size() >= MAX_MEMOIZED) {
+                frozenInputs.clear();
+            }
+            frozenInputs.put(key, frozen);
+        }
+        return frozen;
+    }
+
+    private Optional<Style> extractStyleFor(DocumentItem item, StyleBucket bucket, List<Object> key) {
+        if (key == null) {
+            return extractStyleFor(item, bucket);
+        }
+        var style = resolvedStyles.get(key);
+        if (style == null) {
+            style = extractStyleFor(item, bucket);
+            if (resolvedStyles.size() >= MAX_MEMOIZED) {
+                resolvedStyles.clear();
+            }
+            resolvedStyles.put(key, style);
+        }
+        return style;
+    }
+
+    private Optional<Style> extractStyleFor(DocumentItem item, StyleBucket bucket) {
+        for (final var style : bucket.styles) {
+            final var condition = style.getCondition();
+            if (condition == null || condition.test(item)) {
+                return Optional.of(style);
+            }
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * @return memo key of the item or null if its resolution is not memoizable
+     */
+    private static List<Object> getMemoKey(StyleBucket bucket, DocumentItem item, int columnIndex) {
+        if (bucket.inputs == null) {
+            return null;
+        }
+        final var key = Arrays.<Object>asList(item.getClass(), null, null, null);
+        if (bucket.inputs.contains(StyleCondition.Input.CUSTOM_INDEX_PARITY)) {
+            if (!(item instanceof TableCell)) {
+                return null;
+            }
+            key.set(1, ((TableCell) item).getCustomIndex() % 2);
+        }
+        if (bucket.inputs.contains(StyleCondition.Input.COLUMN_INDEX)) {
+            if (columnIndex == UNKNOWN_COLUMN) {
+                return null;
+            }
+            key.set(2, columnIndex);
+        }
+        if (bucket.inputs.contains(StyleCondition.Input.ITEM_STYLE) && item.getStyle() != null) {
+            key.set(3, new Identity(item.getStyle()));
+        }
+        return key;
+    }
+
+    /**
+     * Returns the bucket of styles which may be applied to the item class,
+     * so that only predicates of those styles are evaluated.
+     *
+     * @param itemClass DocumentItem class
+     * @return applicable styles in registration order
+     */
+    private StyleBucket getStyleBucket(Class<?> itemClass) {
+        final var modCount = ((StyleList) styles).getModCount();
+        if (indexedModCount != modCount) {
+            styleIndex.clear();
+            clearResolvedStyles();
+            indexedModCount = modCount;
+        }
+        return styleIndex.computeIfAbsent(itemClass, clazz -> new StyleBucket(styles
+            .stream()
+            .filter(s -> s.getCondition() == null || clazz.isAssignableFrom(s.getCondition().getClazz()))
+            .toArray(Style[]::new)));
     }
 
     public Boolean contains(Style style) {
@@ -90,6 +284,99 @@ public abstract class StyleService implements StyleApplier {
         return styles;
     }
 
+    /**
+     * Registered styles applicable to an item class, in registration order:
+     * unconditional styles and styles whose condition class is assignable to the item class.
+     */
+    private static class StyleBucket {
+        private final Style[] styles;
+        /**
+         * Inputs declared by conditions of the styles, null if some condition is not memoizable
+         */
+        private final Set<StyleCondition.Input> inputs;
+
+        StyleBucket(Style[] styles) {
+            this.styles = styles;
+            Set<StyleCondition.Input> declared = EnumSet.noneOf(StyleCondition.Input.class);
+            for (final var style : styles) {
+                final var condition = style.getCondition();
+                if (condition != null && condition.getPredicate() != null) {
+                    if (!condition.isMemoizable()) {
+                        declared = null;
+                        break;
+                    }
+                    declared.addAll(condition.getInputs());
+                }
+            }
+            this.inputs = declared;
+        }
+    }
+
+    /**
+     * Memo key part comparing the wrapped object by identity
+     */
+    private static final class Identity {
+        private final Object object;
+
+        Identity(Object object) {
+            this.object = object;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Identity && ((Identity) o).object == object;
+        }
+
+        @Override
+        public int hashCode() {
+            return System.identityHashCode(object);
+        }
+    }
+
+    /**
+     * Key of a merged style: canonical frozen styles compared by identity and hashed by their cached hash codes
+     */
+    private static final class MergeKey {
+        private final Style styleFrom;
+        private final Style styleTo;
+
+        MergeKey(Style styleFrom, Style styleTo) {
+            this.styleFrom = styleFrom;
+            this.styleTo = styleTo;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof MergeKey)) {
+                return false;
+            }
+            final var key = (MergeKey) o;
+            return key.styleFrom == styleFrom && key.styleTo == styleTo;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * styleFrom.hashCode() + styleTo.hashCode();
+        }
+    }
+
+    /**
+     * Styles list exposing its modification count, set() is counted as a modification too.
+     */
+    private static class StyleList extends ArrayList<Style> {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        public Style set(int index, Style element) {
+            modCount++;
+            return super.set(index, element);
+        }
+
+        int getModCount() {
+            return modCount;
+        }
+    }
+
     @Override
     public String toString() {
         return MoreObjects.toStringHelper(this)
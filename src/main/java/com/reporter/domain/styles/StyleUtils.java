@@ -15,6 +15,13 @@ import java.util.Objects;
  */
 public final class StyleUtils {
     private static final Logger log = LoggerFactory.getLogger(StyleUtils.class);
+    /**
+     * New instances of styles, fields of merged styles equal to them are not transferred.
+     * Never modified.
+     */
+    private static final TextStyle DEFAULT_TEXT_STYLE = new TextStyle();
+    private static final LayoutStyle DEFAULT_LAYOUT_STYLE = new LayoutStyle();
+    private static final LayoutTextStyle DEFAULT_LAYOUT_TEXT_STYLE = new LayoutTextStyle();
 
     /**
      * Returns the style difference.
@@ -63,31 +70,161 @@ public final class StyleUtils {
             if (styleTo.equals(styleFrom)) {
                 return;
             }
-            if (styleFrom instanceof LayoutTextStyle && styleTo instanceof LayoutTextStyle) {
-                StyleUtils.joinWith(
-                    ((LayoutTextStyle) styleFrom).getLayoutStyle(),
-                    ((LayoutTextStyle) styleTo).getLayoutStyle()
-                );
-                StyleUtils.joinWith(
-                    ((LayoutTextStyle) styleFrom).getTextStyle(),
-                    ((LayoutTextStyle) styleTo).getTextStyle()
-                );
-            }
-            final Style model = styleFrom.getClass().getDeclaredConstructor().newInstance();
-            if (styleTo.getClass() == styleFrom.getClass()) {
-                final var diff = compare(model, styleFrom);
-                final var fields = styleTo.getClass().getDeclaredFields();
-                final var propAcc = PropertyAccessorFactory.forDirectFieldAccess(styleTo);
-                Arrays.stream(fields).map(Field::getName).forEach(name -> {
-                    if (diff.containsKey(name)) {
-                        propAcc.setPropertyValue(name, diff.get(name));
-                    }
-                });
+            styleTo.checkNotFrozen();
+            final var styleClass = styleFrom.getClass();
+            if (styleTo.getClass() == styleClass && styleClass == TextStyle.class) {
+                joinTextStyle((TextStyle) styleFrom, (TextStyle) styleTo);
+            } else if (styleTo.getClass() == styleClass && styleClass == LayoutStyle.class) {
+                joinLayoutStyle((LayoutStyle) styleFrom, (LayoutStyle) styleTo);
+            } else if (styleTo.getClass() == styleClass && styleClass == LayoutTextStyle.class) {
+                joinLayoutTextStyle((LayoutTextStyle) styleFrom, (LayoutTextStyle) styleTo);
+            } else {
+                joinDeclaredFields(styleFrom, styleTo);
             }
             log.debug("Style {} was merged into result style {} ", styleFrom, styleTo);
         }
     }
 
+    /**
+     * Returns a new style: a copy of styleTo joined with a copy of styleFrom by {@link StyleUtils#joinWith}.
+     * Neither style is changed and the result shares no style objects with them.
+     *
+     * @param styleFrom style whose fields are transferred to the result
+     * @param styleTo   style the result is copied from
+     * @return merged style
+     * @throws Exception when cloning or merging styles
+     */
+    public static Style merge(Style styleFrom, Style styleTo) throws Exception {
+        final var result = styleTo.clone();
+        joinWith(styleFrom.clone(), result);
+        return result;
+    }
+
+    /**
+     * Reflective merge for style classes without a merge function, e.g. user subclasses of styles.
+     */
+    private static void joinDeclaredFields(Style styleFrom, Style styleTo) throws Exception {
+        if (styleFrom instanceof LayoutTextStyle && styleTo instanceof LayoutTextStyle) {
+            StyleUtils.joinWith(
+                ((LayoutTextStyle) styleFrom).getLayoutStyle(),
+                ((LayoutTextStyle) styleTo).getLayoutStyle()
+            );
+            StyleUtils.joinWith(
+                ((LayoutTextStyle) styleFrom).getTextStyle(),
+                ((LayoutTextStyle) styleTo).getTextStyle()
+            );
+        }
+        final Style model = styleFrom.getClass().getDeclaredConstructor().newInstance();
+        if (styleTo.getClass() == styleFrom.getClass()) {
+            final var diff = compare(model, styleFrom);
+            final var fields = styleTo.getClass().getDeclaredFields();
+            final var propAcc = PropertyAccessorFactory.forDirectFieldAccess(styleTo);
+            Arrays.stream(fields).map(Field::getName).forEach(name -> {
+                if (diff.containsKey(name)) {
+                    propAcc.setPropertyValue(name, diff.get(name));
+                }
+            });
+        }
+    }
+
+    /**
+     * Copies the fields of styleFrom which differ from a new {@link TextStyle} instance.
+     */
+    private static void joinTextStyle(TextStyle styleFrom, TextStyle styleTo) {
+        final var model = DEFAULT_TEXT_STYLE;
+        if (!Objects.equals(styleFrom.fontNameResource, model.fontNameResource)) {
+            styleTo.fontNameResource = styleFrom.fontNameResource;
+        }
+        if (styleFrom.fontFamilyStyle != model.fontFamilyStyle) {
+            styleTo.fontFamilyStyle = styleFrom.fontFamilyStyle;
+        }
+        if (!Objects.equals(styleFrom.fontLocale, model.fontLocale)) {
+            styleTo.fontLocale = styleFrom.fontLocale;
+        }
+        if (!Objects.equals(styleFrom.decimalFormat, model.decimalFormat)) {
+            // The format owned by a frozen style is not shared with a mutable one
+            styleTo.decimalFormat = styleFrom.getDecimalFormat();
+        }
+        if (styleFrom.fontSize != model.fontSize) {
+            styleTo.fontSize = styleFrom.fontSize;
+        }
+        if (styleFrom.bold != model.bold) {
+            styleTo.bold = styleFrom.bold;
+        }
+        if (styleFrom.italic != model.italic) {
+            styleTo.italic = styleFrom.italic;
+        }
+        if (styleFrom.underline != model.underline) {
+            styleTo.underline = styleFrom.underline;
+        }
+        if (styleFrom.useTtfFontAttributes != model.useTtfFontAttributes) {
+            styleTo.useTtfFontAttributes = styleFrom.useTtfFontAttributes;
+        }
+        if (styleFrom.color != model.color) {
+            styleTo.color = styleFrom.color;
+        }
+    }
+
+    /**
+     * Copies the fields of styleFrom which differ from a new {@link LayoutStyle} instance.
+     */
+    private static void joinLayoutStyle(LayoutStyle styleFrom, LayoutStyle styleTo) {
+        final var model = DEFAULT_LAYOUT_STYLE;
+        if (styleFrom.width != model.width) {
+            styleTo.width = styleFrom.width;
+        }
+        if (styleFrom.autoWidth != model.autoWidth) {
+            styleTo.autoWidth = styleFrom.autoWidth;
+        }
+        if (styleFrom.shrinkToFit != model.shrinkToFit) {
+            styleTo.shrinkToFit = styleFrom.shrinkToFit;
+        }
+        if (!Objects.equals(styleFrom.borderTop, model.borderTop)) {
+            styleTo.borderTop = styleFrom.borderTop;
+        }
+        if (!Objects.equals(styleFrom.borderLeft, model.borderLeft)) {
+            styleTo.borderLeft = styleFrom.borderLeft;
+        }
+        if (!Objects.equals(styleFrom.borderRight, model.borderRight)) {
+            styleTo.borderRight = styleFrom.borderRight;
+        }
+        if (!Objects.equals(styleFrom.borderBottom, model.borderBottom)) {
+            styleTo.borderBottom = styleFrom.borderBottom;
+        }
+        if (styleFrom.fillBackgroundColor != model.fillBackgroundColor) {
+            styleTo.fillBackgroundColor = styleFrom.fillBackgroundColor;
+        }
+        if (styleFrom.fillForegroundColor != model.fillForegroundColor) {
+            styleTo.fillForegroundColor = styleFrom.fillForegroundColor;
+        }
+        if (styleFrom.fillPattern != model.fillPattern) {
+            styleTo.fillPattern = styleFrom.fillPattern;
+        }
+        if (styleFrom.horAlignment != model.horAlignment) {
+            styleTo.horAlignment = styleFrom.horAlignment;
+        }
+        if (styleFrom.vertAlignment != model.vertAlignment) {
+            styleTo.vertAlignment = styleFrom.vertAlignment;
+        }
+    }
+
+    /**
+     * Joins the inner styles, then replaces the inner styles of styleTo
+     * by the inner styles of styleFrom which differ from a new {@link LayoutTextStyle} instance,
+     * as the reflective merge does.
+     */
+    private static void joinLayoutTextStyle(LayoutTextStyle styleFrom, LayoutTextStyle styleTo) throws Exception {
+        joinWith(styleFrom.layoutStyle, styleTo.layoutStyle);
+        joinWith(styleFrom.textStyle, styleTo.textStyle);
+        final var model = DEFAULT_LAYOUT_TEXT_STYLE;
+        if (!Objects.equals(styleFrom.layoutStyle, model.layoutStyle)) {
+            styleTo.layoutStyle = styleFrom.layoutStyle;
+        }
+        if (!Objects.equals(styleFrom.textStyle, model.textStyle)) {
+            styleTo.textStyle = styleFrom.textStyle;
+        }
+    }
+
     @Override
     public StyleUtils clone() throws CloneNotSupportedException {
         return (StyleUtils) super.clone();
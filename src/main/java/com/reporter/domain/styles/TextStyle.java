@@ -70,9 +70,24 @@ public class TextStyle extends Style {
         return new TextStyle().setFontNameResource(fontNameResource);
     }
 
+    /**
+     * Returns a mutable copy, the decimal format of a frozen style is copied too
+     */
     @Override
     public TextStyle clone() throws CloneNotSupportedException {
-        return (TextStyle) super.clone();
+        final var style = (TextStyle) super.clone();
+        if (isFrozen && decimalFormat != null) {
+            style.decimalFormat = (DecimalFormat) decimalFormat.clone();
+        }
+        return style;
+    }
+
+    /**
+     * Keeps an own copy of the mutable decimal format, so changes of the original one do not reach the frozen style
+     */
+    @Override
+    protected void freezeParts() {
+        decimalFormat = decimalFormat != null ? (DecimalFormat) decimalFormat.clone() : null;
     }
 
     @Override
@@ -80,6 +95,7 @@ public class TextStyle extends Style {
         if (this == o) return true;
         if (!(o instanceof TextStyle)) return false;
         final TextStyle textStyle = (TextStyle) o;
+        if (isFrozenAndDiffers(textStyle)) return false;
         return fontSize == textStyle.fontSize
             && bold == textStyle.bold
             && italic == textStyle.italic
@@ -94,6 +110,9 @@ public class TextStyle extends Style {
 
     @Override
     public int hashCode() {
+        if (isFrozen) {
+            return frozenHash;
+        }
         return Objects.hashCode(
             fontNameResource,
             fontFamilyStyle,
@@ -130,6 +149,7 @@ public class TextStyle extends Style {
     }
 
     public TextStyle setFontNameResource(String fontNameResource) {
+        checkNotFrozen();
         this.fontNameResource = fontNameResource;
         return this;
     }
@@ -139,6 +159,7 @@ public class TextStyle extends Style {
     }
 
     public TextStyle setFontFamilyStyle(FontFamilyStyle fontFamilyStyle) {
+        checkNotFrozen();
         this.fontFamilyStyle = fontFamilyStyle;
         return this;
     }
@@ -148,6 +169,7 @@ public class TextStyle extends Style {
     }
 
     public TextStyle setFontLocale(Locale fontLocale) {
+        checkNotFrozen();
         this.fontLocale = fontLocale;
         return this;
     }
@@ -157,15 +179,22 @@ public class TextStyle extends Style {
     }
 
     public TextStyle setFontSize(short fontSize) {
+        checkNotFrozen();
         this.fontSize = fontSize;
         return this;
     }
 
+    /**
+     * Returns the decimal format, a copy of it for a frozen style
+     *
+     * @return decimal format
+     */
     public DecimalFormat getDecimalFormat() {
-        return decimalFormat;
+        return isFrozen && decimalFormat != null ? (DecimalFormat) decimalFormat.clone() : decimalFormat;
     }
 
     public TextStyle setDecimalFormat(DecimalFormat decimalFormat) {
+        checkNotFrozen();
         this.decimalFormat = decimalFormat;
         return this;
     }
@@ -175,6 +204,7 @@ public class TextStyle extends Style {
     }
 
     public TextStyle setBold(boolean bold) {
+        checkNotFrozen();
         this.bold = bold;
         return this;
     }
@@ -184,6 +214,7 @@ public class TextStyle extends Style {
     }
 
     public TextStyle setItalic(boolean italic) {
+        checkNotFrozen();
         this.italic = italic;
         return this;
     }
@@ -193,6 +224,7 @@ public class TextStyle extends Style {
     }
 
     public TextStyle setUnderline(byte underline) {
+        checkNotFrozen();
         this.underline = underline;
         return this;
     }
@@ -202,6 +234,7 @@ public class TextStyle extends Style {
     }
 
     public TextStyle setUseTtfFontAttributes(boolean useTtfFontAttributes) {
+        checkNotFrozen();
         this.useTtfFontAttributes = useTtfFontAttributes;
         return this;
     }
@@ -211,6 +244,7 @@ public class TextStyle extends Style {
     }
 
     public TextStyle setColor(Color color) {
+        checkNotFrozen();
         this.color = color;
         return this;
     }
@@ -0,0 +1,401 @@
+package com.reporter.formatter;
+
+import com.google.common.collect.Iterables;
+import com.reporter.domain.CompositionPart;
+import com.reporter.domain.Document;
+import com.reporter.domain.DocumentItem;
+import com.reporter.domain.Table;
+import com.reporter.domain.TableHeaderRow;
+import com.reporter.domain.TableRow;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Push-based writing of a document: items, tables and their rows are passed one by one
+ * while the {@link Formatter} visits them on its executor thread and writes them through to its resource.
+ * Only a bounded number of pushed items is kept in memory, rows are not collected into tables.
+ * <p>
+ * The document is completed only by {@link DocumentStreamWriter#finish()},
+ * a writer closed without it or {@link DocumentStreamWriter#abort(Throwable) aborted}
+ * stops the formatter and deletes the partially written document.
+ * <p>
+ * Usage:
+ * <pre>{@code
+ * try (final var writer = formatter.stream(Document.create().setLabel("report"))) {
+ *     writer.add(Title.create("Title"));
+ *     writer.beginTable(tableHeaderRow);
+ *     rows.forEach(writer::addRow);
+ *     writer.end();
+ *     documentHolder = writer.finish();
+ * }
+ * }</pre>
+ */
+public class DocumentStreamWriter implements AutoCloseable {
+    private static final Logger log = LoggerFactory.getLogger(DocumentStreamWriter.class);
+
+    private static final long POLL_MILLIS = 100;
+
+    /**
+     * Event closing the current composition
+     */
+    private static final Object END = new Object();
+
+    /**
+     * Event waking the formatter after {@link DocumentStreamWriter#abort(Throwable)}
+     */
+    private static final Object ABORT = new Object();
+
+    /**
+     * Event opening a composition whose parts are the following events up to its {@link DocumentStreamWriter#END}
+     */
+    private static class Begin {
+        private final CompositionPart<?, ?> compositionPart;
+
+        private Begin(CompositionPart<?, ?> compositionPart) {
+            this.compositionPart = compositionPart;
+        }
+    }
+
+    private final BlockingQueue<Object> events;
+    private final CompletableFuture<DocumentHolder> formatting = new CompletableFuture<>();
+
+    /**
+     * Row counters of open compositions, the document is the bottom one
+     */
+    private final Deque<int[]> openRowCounters = new ArrayDeque<>();
+
+    private boolean isFinished;
+
+    /**
+     * Cause of {@link DocumentStreamWriter#abort(Throwable)}, checked by the formatter thread
+     */
+    private volatile Throwable abortCause;
+
+    DocumentStreamWriter(Formatter formatter, Document document, int capacity, Executor executor) {
+        events = new ArrayBlockingQueue<>(capacity);
+        final var parts = new LazyParts<DocumentItem>();
+        document.setParts(
+            document.getParts().iterator().hasNext()
+                ? Iterables.concat(document.getParts(), parts)
+                : parts
+        );
+        openRowCounters.push(new int[1]);
+        executor.execute(() -> {
+            try {
+                formatting.complete(formatter.handle(document));
+            } catch (Throwable t) {
+                deleteResource(formatter);
+                formatting.completeExceptionally(t);
+                events.clear();
+            }
+        });
+    }
+
+    /**
+     * Returns the executor running every formatter on a new daemon thread
+     *
+     * @param document document, its label names the thread
+     * @return Executor
+     */
+    static Executor newThreadExecutor(Document document) {
+        return task -> {
+            final var thread = new Thread(task, "formatter-" + document.getLabel());
+            thread.setDaemon(true);
+            thread.start();
+        };
+    }
+
+    /**
+     * Writes the item into the current composition
+     *
+     * @param item document item, e.g. {@link com.reporter.domain.Title} or a complete {@link Table}
+     * @return DocumentStreamWriter
+     */
+    public DocumentStreamWriter add(DocumentItem item) {
+        checkNotFinished();
+        if (item instanceof TableRow) {
+            ((TableRow) item).setRowIndex(openRowCounters.element()[0]++);
+        }
+        push(item);
+        return this;
+    }
+
+    /**
+     * Writes the row into the current table
+     *
+     * @param row table row
+     * @return DocumentStreamWriter
+     */
+    public DocumentStreamWriter addRow(TableRow row) {
+        return add(row);
+    }
+
+    /**
+     * Opens the composition, following items are written into it up to {@link DocumentStreamWriter#end()}
+     *
+     * @param compositionPart table or document case, its parts are replaced by the pushed items
+     * @return DocumentStreamWriter
+     */
+    public DocumentStreamWriter begin(CompositionPart<?, ?> compositionPart) {
+        checkNotFinished();
+        push(new Begin(compositionPart));
+        openRowCounters.push(new int[1]);
+        return this;
+    }
+
+    /**
+     * Opens the table with the header, see {@link DocumentStreamWriter#begin(CompositionPart)}
+     *
+     * @param tableHeaderRow table header
+     * @return DocumentStreamWriter
+     */
+    public DocumentStreamWriter beginTable(TableHeaderRow tableHeaderRow) {
+        return begin(Table.create(tableHeaderRow));
+    }
+
+    /**
+     * Closes the current composition
+     *
+     * @return DocumentStreamWriter
+     */
+    public DocumentStreamWriter end() {
+        checkNotFinished();
+        if (openRowCounters.size() <= 1) {
+            throw new IllegalStateException("There is no open composition");
+        }
+        push(END);
+        openRowCounters.pop();
+        return this;
+    }
+
+    /**
+     * Closes all open compositions and the document, then waits for the formatter
+     *
+     * @return DocumentHolder of the written document
+     * @throws Throwable can occur while formatting the document
+     */
+    public DocumentHolder finish() throws Throwable {
+        if (abortCause != null) {
+            throw new IllegalStateException("Document is aborted", abortCause);
+        }
+        if (!isFinished) {
+            isFinished = true;
+            while (!openRowCounters.isEmpty() && !formatting.isDone()) {
+                push(END);
+                openRowCounters.pop();
+            }
+        }
+        try {
+            return formatting.get();
+        } catch (ExecutionException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Stops the formatter without completing the document and deletes its partially written resource,
+     * e.g. when producing the items failed
+     *
+     * @param cause reason of the abort
+     */
+    public void abort(Throwable cause) {
+        if (isFinished) {
+            return;
+        }
+        isFinished = true;
+        abortCause = cause != null ? cause : new IllegalStateException("Document is aborted");
+        // The producer is the only thread adding events, so the wake-up event always fits
+        events.clear();
+        events.offer(ABORT);
+        try {
+            formatting.join().close();
+        } catch (CompletionException e) {
+            log.debug("abort: formatting stopped", e.getCause());
+        } catch (Exception e) {
+            log.warn("abort: document of the finished formatter is not deleted", e);
+        }
+    }
+
+    /**
+     * Aborts the document if {@link DocumentStreamWriter#finish()} was not called,
+     * see {@link DocumentStreamWriter#abort(Throwable)}
+     */
+    @Override
+    public void close() {
+        if (isFinished) {
+            return;
+        }
+        log.warn("close: document is closed without finish and is aborted");
+        abort(new IllegalStateException("Document is closed without finish"));
+    }
+
+    private void checkNotFinished() {
+        if (isFinished) {
+            throw new IllegalStateException("Document is finished");
+        }
+    }
+
+    private void push(Object event) {
+        try {
+            while (!events.offer(event, POLL_MILLIS, TimeUnit.MILLISECONDS)) {
+                if (isFormattingDone(event)) {
+                    return;
+                }
+            }
+            isFormattingDone(event);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Checks whether the formatter stopped reading events
+     *
+     * @param event event being pushed
+     * @return true if the formatter finished and the closing event is not needed
+     */
+    private boolean isFormattingDone(Object event) {
+        if (!formatting.isDone()) {
+            return false;
+        }
+        try {
+            formatting.join();
+        } catch (CompletionException e) {
+            throw new IllegalStateException("Formatting failed", e.getCause());
+        }
+        if (event != END) {
+            throw new IllegalStateException("Formatter finished before the document was written");
+        }
+        return true;
+    }
+
+    /**
+     * Parts of a composition read from the events by the formatter thread
+     */
+    private class LazyParts<K extends DocumentItem> implements Iterable<K>, Iterator<K> {
+        private K pending;
+        private LazyParts<?> openChild;
+        private boolean isEnded;
+        private boolean isIterated;
+
+        @Override
+        public Iterator<K> iterator() {
+            if (isIterated) {
+                throw new IllegalStateException("Streamed parts can be iterated only once");
+            }
+            isIterated = true;
+            return this;
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (pending != null) {
+                return true;
+            }
+            if (isEnded) {
+                return false;
+            }
+            if (openChild != null) {
+                // The visitor may skip parts of the previous composition
+                openChild.skipRemaining();
+                openChild = null;
+            }
+            final var event = take();
+            if (event == END) {
+                isEnded = true;
+                return false;
+            }
+            if (event instanceof Begin) {
+                final var compositionPart = ((Begin) event).compositionPart;
+                if (compositionPart instanceof Table) {
+                    // Rows are indexed and counted by the table as they are visited
+                    final var rows = new LazyParts<TableRow>();
+                    ((Table) compositionPart).setStreamedParts(rows.iterator());
+                    openChild = rows;
+                } else {
+                    final var child = new LazyParts<>();
+                    setParts(compositionPart, child);
+                    openChild = child;
+                }
+                pending = cast(compositionPart);
+            } else {
+                pending = cast(event);
+            }
+            return true;
+        }
+
+        @Override
+        public K next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            final var item = pending;
+            pending = null;
+            return item;
+        }
+
+        private void skipRemaining() {
+            while (hasNext()) {
+                next();
+            }
+        }
+
+        private Object take() {
+            final Object event;
+            try {
+                event = events.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException(e);
+            }
+            if (abortCause != null) {
+                throw new IllegalStateException("Document is aborted", abortCause);
+            }
+            return event;
+        }
+
+        @SuppressWarnings("unchecked")
+        private K cast(Object item) {
+            return (K) item;
+        }
+    }
+
+    /**
+     * Deletes the partially written file of the failed formatter
+     *
+     * @param formatter formatter
+     */
+    private static void deleteResource(Formatter formatter) {
+        final var resource = formatter.getResource();
+        if (resource == null || !resource.isFile()) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(resource.getFile().toPath());
+            log.debug("deleteResource: partial document '{}' is deleted", resource.getFilename());
+        } catch (IOException e) {
+            log.warn("deleteResource: partial document '{}' is not deleted", resource.getFilename(), e);
+        }
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static void setParts(CompositionPart compositionPart, Iterable<?> parts) {
+        compositionPart.setParts(parts);
+        log.debug("setParts: parts of {} are streamed", compositionPart.getClass().getSimpleName());
+    }
+}
@@ -1,11 +1,14 @@
 package com.reporter.formatter;
 
 import com.reporter.domain.Document;
+import com.reporter.domain.db.QueryTable;
 import org.springframework.core.io.WritableResource;
 import org.springframework.util.StringUtils;
 
 import java.io.IOException;
 import java.io.OutputStream;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
 
 /**
  * Class contains the document resource, the resource stream, and the resource's file name if it is a file.
@@ -45,6 +48,93 @@ public abstract class Formatter extends FormatterVisitor implements BaseFormatte
         return new DocumentHolder(resource);
     }
 
+    /**
+     * Writes the document like {@link Formatter#handle(Document)},
+     * queries of all {@link QueryTable QueryTables} are started concurrently on the executor beforehand
+     * and their rows are visited in document order.
+     * Queries not yet visited when the document fails are cancelled
+     *
+     * @param document input meta-document
+     * @param executor executor running the queries, bounds their parallelism
+     * @return DocumentHolder
+     * @throws Throwable can occur while querying or creating/initializing/cleaning up {@link Formatter#resource}
+     */
+    public DocumentHolder handle(Document document, Executor executor) throws Throwable {
+        if (document == null) {
+            throw new IllegalArgumentException("Document not set");
+        }
+        QueryTable.prefetchAll(document, executor);
+        try {
+            return handle(document);
+        } catch (Throwable t) {
+            QueryTable.cancelPrefetchAll(document);
+            throw t;
+        }
+    }
+
+    /**
+     * Writes the document like {@link Formatter#handle(Document, Executor)}
+     * running at most parallelism queries at once
+     *
+     * @param document    input meta-document
+     * @param parallelism number of concurrent queries
+     * @return DocumentHolder
+     * @throws Throwable can occur while querying or creating/initializing/cleaning up {@link Formatter#resource}
+     */
+    public DocumentHolder handle(Document document, int parallelism) throws Throwable {
+        final var executor = Executors.newFixedThreadPool(parallelism);
+        try {
+            return handle(document, executor);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * Starts writing the document incrementally: items pushed to the returned writer
+     * are visited by this formatter on the executor as they arrive,
+     * see {@link DocumentStreamWriter}.
+     * The formatter occupies an executor thread until the document is finished,
+     * so the producer must not wait for the same bounded executor
+     *
+     * @param document input meta-document, its parts are followed by the pushed items
+     * @param capacity number of pushed items waiting for the formatter before the writer blocks
+     * @param executor executor running the formatter
+     * @return DocumentStreamWriter
+     */
+    public DocumentStreamWriter stream(Document document, int capacity, Executor executor) {
+        if (document == null) {
+            throw new IllegalArgumentException("Document not set");
+        }
+        return new DocumentStreamWriter(this, document, capacity, executor);
+    }
+
+    /**
+     * Starts writing the document incrementally on a new thread of the formatter,
+     * see {@link Formatter#stream(Document, int, Executor)}
+     *
+     * @param document input meta-document, its parts are followed by the pushed items
+     * @param capacity number of pushed items waiting for the formatter before the writer blocks
+     * @return DocumentStreamWriter
+     */
+    public DocumentStreamWriter stream(Document document, int capacity) {
+        if (document == null) {
+            throw new IllegalArgumentException("Document not set");
+        }
+        return stream(document, capacity, DocumentStreamWriter.newThreadExecutor(document));
+    }
+
+    /**
+     * Starts writing the document incrementally with the default capacity,
+     * see {@link Formatter#stream(Document, int)}
+     *
+     * @param document input meta-document
+     * @return DocumentStreamWriter
+     */
+    public DocumentStreamWriter stream(Document document) {
+        return stream(document, 1024);
+    }
+
     /**
      * Initialization of resources required by the formatter for writing
      *
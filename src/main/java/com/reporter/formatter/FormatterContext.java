@@ -178,6 +178,7 @@ public class FormatterContext {
                     .create(
                         TableCell.class, isTableCell.and(isInterlinear)
                     )
+                    .dependsOn(StyleCondition.Input.CUSTOM_INDEX_PARITY)
             );
     }
 
@@ -210,6 +211,7 @@ public class FormatterContext {
                 .create(
                     TableCell.class, isTableCell.and(isInterlinear)
                 )
+                .dependsOn(StyleCondition.Input.CUSTOM_INDEX_PARITY)
             );
     }
 
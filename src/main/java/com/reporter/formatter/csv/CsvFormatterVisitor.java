@@ -6,24 +6,39 @@ import com.reporter.domain.Heading;
 import com.reporter.domain.Paragraph;
 import com.reporter.domain.Separator;
 import com.reporter.domain.Table;
+import com.reporter.domain.TableCell;
 import com.reporter.domain.TableHeaderRow;
 import com.reporter.domain.TableRow;
 import com.reporter.domain.Title;
+import com.reporter.domain.styles.Style;
 import com.reporter.domain.styles.StyleService;
+import com.reporter.domain.styles.TextStyle;
 import com.reporter.formatter.Formatter;
 import com.google.common.base.MoreObjects;
 import org.supercsv.io.CsvListWriter;
 import org.supercsv.prefs.CsvPreference;
 import org.springframework.http.MediaType;
+import org.springframework.util.StringUtils;
 
 import java.io.IOException;
 import java.io.OutputStream;
 import java.io.OutputStreamWriter;
+import java.io.StringWriter;
 import java.nio.charset.Charset;
 import java.text.DecimalFormat;
+import java.text.ParseException;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
 
 import static com.reporter.utils.LocalizedNumberUtils.applyDecimalFormat;
+import static com.reporter.utils.LocalizedNumberUtils.isNumber;
+import static com.reporter.utils.LocalizedNumberUtils.localizeNumber;
 
 /**
  * The class generates a csv representation of the document {@link Document}
@@ -31,6 +46,24 @@ import static com.reporter.utils.LocalizedNumberUtils.applyDecimalFormat;
 public class CsvFormatterVisitor extends Formatter {
     private static final String EXTENSION = "csv";
     private static final MediaType MEDIA_TYPE = MediaType.parseMediaType("text/csv");
+    /**
+     * Whether the visitor class keeps the row and cell hooks of this class,
+     * only then rows may be formatted in chunks bypassing them
+     */
+    private static final ClassValue<Boolean> hasDefaultRowHooks = new ClassValue<>() {
+        @Override
+        protected Boolean computeValue(Class<?> type) {
+            try {
+                return
+                    type.getMethod("visitTableRow", TableRow.class).getDeclaringClass()
+                        .isAssignableFrom(CsvFormatterVisitor.class)
+                        && type.getMethod("visitTableCell", TableCell.class).getDeclaringClass()
+                        .isAssignableFrom(CsvFormatterVisitor.class);
+            } catch (NoSuchMethodException e) {
+                return false;
+            }
+        }
+    };
     protected OutputStreamWriter writer;
     protected CsvListWriter csvWriter;
 
@@ -38,6 +71,20 @@ public class CsvFormatterVisitor extends Formatter {
     protected DecimalFormat decimalFormat;
 
     protected CsvPreference csvPreference = CsvPreference.EXCEL_NORTH_EUROPE_PREFERENCE;
+    /**
+     * Number of threads formatting table rows, 1 - rows are formatted on the writing thread.
+     * Subclasses overriding {@link CsvFormatterVisitor#visitTableRow(TableRow)}
+     * or {@link CsvFormatterVisitor#visitTableCell(TableCell)} always format rows on the writing thread
+     */
+    protected int parallelism = 1;
+    /**
+     * Number of table rows formatted by one parallel task
+     */
+    protected int chunkSize = 4096;
+    /**
+     * Pool formatting row chunks while the document is written in parallel mode
+     */
+    protected ForkJoinPool pool;
 
     @Override
     public String getExtension() {
@@ -76,7 +123,17 @@ public class CsvFormatterVisitor extends Formatter {
         }
         writer = new OutputStreamWriter(outputStream, encoding);
         csvWriter = new CsvListWriter(writer, csvPreference);
-        this.visitComposition(documentObj);
+        if (parallelism > 1 && hasDefaultRowHooks.get(getClass())) {
+            pool = new ForkJoinPool(parallelism);
+        }
+        try {
+            this.visitComposition(documentObj);
+        } finally {
+            if (pool != null) {
+                pool.shutdownNow();
+                pool = null;
+            }
+        }
         csvWriter.close();
     }
 
@@ -100,7 +157,95 @@ public class CsvFormatterVisitor extends Formatter {
         if (tableObj.getTableHeaderRow().isPresent()) {
             this.visitTableHeaderRow(tableObj.getTableHeaderRow().get());
         }
-        this.visitComposition(tableObj);
+        if (pool != null) {
+            writeRowChunks(tableObj);
+        } else {
+            this.visitComposition(tableObj);
+        }
+    }
+
+    /**
+     * Formats table rows in chunks on the pool and writes the chunks in the order of the rows.
+     * Cell texts and styles are copied on the calling thread, since rows may be reused or streamed.
+     * Formatted chunks stay chars, encoding is left to the writer to keep the output identical to serial mode.
+     *
+     * @param tableObj table with rows to write
+     * @throws Throwable formatting or writing exception
+     */
+    protected void writeRowChunks(Table tableObj) throws Throwable {
+        final var pending = new ArrayDeque<ForkJoinTask<String>>();
+        var texts = new ArrayList<String[]>(chunkSize);
+        var styles = new ArrayList<Style[]>(chunkSize);
+        csvWriter.flush();
+        for (final TableRow row : tableObj.getParts()) {
+            final var rowTexts = new ArrayList<String>();
+            final var rowStyles = new ArrayList<Style>();
+            for (final var cell : row.getParts()) {
+                rowTexts.add(cell.getText());
+                rowStyles.add(cell.getStyle());
+            }
+            texts.add(rowTexts.toArray(new String[0]));
+            styles.add(rowStyles.toArray(new Style[0]));
+            if (texts.size() == chunkSize) {
+                if (pending.size() == 2 * parallelism) {
+                    writeChunk(pending.poll());
+                }
+                pending.add(submitChunk(texts, styles));
+                texts = new ArrayList<>(chunkSize);
+                styles = new ArrayList<>(chunkSize);
+            }
+        }
+        if (!texts.isEmpty()) {
+            pending.add(submitChunk(texts, styles));
+        }
+        while (!pending.isEmpty()) {
+            writeChunk(pending.poll());
+        }
+        writer.flush();
+    }
+
+    private ForkJoinTask<String> submitChunk(List<String[]> texts, List<Style[]> styles) {
+        final var csvPreference = this.csvPreference;
+        final var chunkFormat = decimalFormat != null ? (DecimalFormat) decimalFormat.clone() : null;
+        return pool.submit(() -> {
+            // DecimalFormat is not thread-safe, style formats are cloned once per chunk
+            final var styleFormats = new IdentityHashMap<DecimalFormat, DecimalFormat>();
+            final var chunk = new StringWriter();
+            try (var chunkWriter = new CsvListWriter(chunk, csvPreference)) {
+                final var tableRow = new ArrayList<String>();
+                for (var r = 0; r < texts.size(); r++) {
+                    final var rowTexts = texts.get(r);
+                    final var rowStyles = styles.get(r);
+                    tableRow.clear();
+                    for (var i = 0; i < rowTexts.length; i++) {
+                        tableRow.add(formatCell(rowTexts[i], rowStyles[i], chunkFormat, styleFormats));
+                    }
+                    chunkWriter.write(tableRow);
+                }
+            }
+            return chunk.toString();
+        });
+    }
+
+    private static String formatCell(String text, Style style, DecimalFormat chunkFormat,
+                                     Map<DecimalFormat, DecimalFormat> styleFormats) throws ParseException {
+        if (chunkFormat == null && style instanceof TextStyle) {
+            final var textStyle = (TextStyle) style;
+            final var decimalFormat = textStyle.getDecimalFormat();
+            if (decimalFormat != null && StringUtils.hasText(text) && isNumber(text)) {
+                final var format = styleFormats.computeIfAbsent(decimalFormat, f -> (DecimalFormat) f.clone());
+                return localizeNumber(text, format, textStyle.getFontLocale());
+            }
+        }
+        return applyDecimalFormat(text, style, chunkFormat);
+    }
+
+    private void writeChunk(ForkJoinTask<String> chunk) throws Throwable {
+        try {
+            writer.write(chunk.get());
+        } catch (ExecutionException e) {
+            throw e.getCause();
+        }
     }
 
     @Override
@@ -141,6 +286,8 @@ public class CsvFormatterVisitor extends Formatter {
                 .add("encoding", encoding)
                 .add("decimalFormat", decimalFormat)
                 .add("csvPreference", csvPreference)
+                .add("parallelism", parallelism)
+                .add("chunkSize", chunkSize)
                 .add("parent", super.toString())
                 .toString();
     }
@@ -198,4 +345,22 @@ public class CsvFormatterVisitor extends Formatter {
         this.csvPreference = csvPreference;
         return this;
     }
+
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    public CsvFormatterVisitor setParallelism(int parallelism) {
+        this.parallelism = parallelism;
+        return this;
+    }
+
+    public int getChunkSize() {
+        return chunkSize;
+    }
+
+    public CsvFormatterVisitor setChunkSize(int chunkSize) {
+        this.chunkSize = chunkSize;
+        return this;
+    }
 }
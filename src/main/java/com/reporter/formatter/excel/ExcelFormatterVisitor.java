@@ -1,12 +1,13 @@
 package com.reporter.formatter.excel;
 
 import com.google.common.base.MoreObjects;
+import com.google.common.collect.Iterables;
+import com.google.common.collect.Lists;
 import com.reporter.domain.*;
 import com.reporter.domain.Table;
 import com.reporter.domain.styles.LayoutStyle;
 import com.reporter.domain.styles.LayoutTextStyle;
 import com.reporter.domain.styles.StyleService;
-import com.reporter.domain.styles.StyleUtils;
 import com.reporter.domain.styles.TextStyle;
 import com.reporter.formatter.Formatter;
 import com.reporter.formatter.excel.styles.ExcelStyleService;
@@ -24,6 +25,12 @@ import org.springframework.util.StringUtils;
 
 import java.io.IOException;
 import java.text.DecimalFormat;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executors;
 
 /**
  * The class accepts an excel workbook {@link ExcelFormatterVisitor#workbook} and
@@ -34,6 +41,14 @@ public class ExcelFormatterVisitor extends Formatter {
     protected FontCharset fontCharset;
     protected DecimalFormat decimalFormat;
     protected StyleService styleService;
+    /**
+     * Cursors of the sheet, row and cell being written,
+     * rows and cells are only appended so they are never looked up in the workbook
+     */
+    private Sheet currentSheet;
+    private Row currentRow;
+    private int nextRowIndex;
+    private int nextCellIndex;
     private final Logger log = LoggerFactory.getLogger(ExcelFormatterVisitor.class);
 
     @Override
@@ -49,6 +64,14 @@ public class ExcelFormatterVisitor extends Formatter {
     @Override
     public void initializeResource() throws IOException {
         workbook = getWorkbook();
+        currentSheet = null;
+        currentRow = null;
+        final var sheetCount = workbook.getNumberOfSheets();
+        if (sheetCount > 0) {
+            // Rows of a given workbook are appended to its last sheet
+            currentSheet = workbook.getSheetAt(sheetCount - 1);
+            nextRowIndex = currentSheet.getPhysicalNumberOfRows() > 0 ? currentSheet.getLastRowNum() + 1 : 0;
+        }
     }
 
     @Override
@@ -60,34 +83,105 @@ public class ExcelFormatterVisitor extends Formatter {
     @Override
     public void visitDocument(Document documentObj) throws Throwable {
         styleService = getStyleService();
+        styleService.clearResolvedStyles();
         styleService.writeStyles(workbook);
-        this.visitComposition(documentObj);
+        final var parts = documentObj.getParts();
+        if (getParallelSheetCount() > 1
+            && parts instanceof Collection
+            && !((Collection<?>) parts).isEmpty()
+            && Iterables.all(parts, DocumentCase.class::isInstance)
+        ) {
+            visitDocumentCases(Lists.newArrayList(Iterables.filter(parts, DocumentCase.class)));
+        } else {
+            this.visitComposition(documentObj);
+        }
+        ((ExcelStyleService) styleService).adjustColumnWidths();
+    }
+
+    /**
+     * Writes sheets of the document cases concurrently, each one by its own visitor and copy of the style service.
+     * Sheets are created in order beforehand, so the workbook only gets cell styles and fonts from the workers
+     *
+     * @param documentCases document cases
+     * @throws Throwable can occur while writing a sheet
+     */
+    private void visitDocumentCases(List<DocumentCase> documentCases) throws Throwable {
+        final var sheetVisitors = new ArrayList<ExcelFormatterVisitor>(documentCases.size());
+        for (final var documentCase : documentCases) {
+            final var sheetVisitor = new ExcelFormatterVisitor();
+            sheetVisitor.workbook = workbook;
+            sheetVisitor.styleService = ((ExcelStyleService) styleService).copy();
+            sheetVisitor.currentSheet = createSheet(WorkbookUtil.createSafeSheetName(documentCase.getName()));
+            sheetVisitors.add(sheetVisitor);
+        }
+        final var executor = Executors.newFixedThreadPool(Integer.min(getParallelSheetCount(), documentCases.size()));
+        try {
+            final var sheets = new ArrayList<CompletableFuture<Void>>(documentCases.size());
+            for (int i = 0; i < documentCases.size(); i++) {
+                final var documentCase = documentCases.get(i);
+                final var sheetVisitor = sheetVisitors.get(i);
+                sheets.add(
+                    CompletableFuture.runAsync(() -> {
+                        try {
+                            sheetVisitor.visitComposition(documentCase);
+                            ((ExcelStyleService) sheetVisitor.styleService).adjustColumnWidths();
+                        } catch (Throwable t) {
+                            throw new CompletionException(t);
+                        }
+                    }, executor)
+                );
+            }
+            for (final var sheet : sheets) {
+                try {
+                    sheet.join();
+                } catch (CompletionException e) {
+                    throw e.getCause();
+                }
+            }
+        } finally {
+            executor.shutdown();
+        }
+        for (final var sheetVisitor : sheetVisitors) {
+            ((ExcelStyleService) styleService).addCountersOf((ExcelStyleService) sheetVisitor.styleService);
+        }
+        final var lastVisitor = sheetVisitors.get(sheetVisitors.size() - 1);
+        currentRow = lastVisitor.currentRow;
+        nextRowIndex = lastVisitor.nextRowIndex;
+        nextCellIndex = lastVisitor.nextCellIndex;
+    }
+
+    /**
+     * Returns the number of sheets written concurrently,
+     * the workbook must allow writing rows of different sheets from different threads
+     *
+     * @return 1 unless a workbook supports it
+     */
+    protected int getParallelSheetCount() {
+        return 1;
     }
 
     @Override
     public void visitDocumentCase(DocumentCase documentCase) throws Throwable {
-        workbook.createSheet(WorkbookUtil.createSafeSheetName(documentCase.getName())); // SheetName must be unique
+        createSheet(WorkbookUtil.createSafeSheetName(documentCase.getName())); // SheetName must be unique
         this.visitComposition(documentCase);
     }
 
     @Override
     public void visitTitle(Title titleObj) throws Exception {
-        final var sheet = getLastSheet(workbook);
-        final var row = createRow(sheet, 1);
+        createRow();
         ((ExcelStyleService) styleService)
                 .fillCellFromItem(
-                        createCell(row, 1, CellType.STRING),
+                        createCell(1, CellType.STRING),
                         titleObj
                 );
     }
 
     @Override
     public void visitParagraph(Paragraph paragraphObj) throws Exception {
-        final var sheet = getLastSheet(workbook);
-        final var row = createRow(sheet, 1);
+        createRow();
         ((ExcelStyleService) styleService)
                 .fillCellFromItem(
-                        createCell(row, 1, CellType.STRING),
+                        createCell(1, CellType.STRING),
                         paragraphObj
                 );
     }
@@ -95,11 +189,10 @@ public class ExcelFormatterVisitor extends Formatter {
     @Override
     public void visitHeading(Heading headingObj) throws Exception {
         final var depth = headingObj.getDepth();
-        final var sheet = getLastSheet(workbook);
-        final var row = createRow(sheet, 1);
+        createRow();
         ((ExcelStyleService) styleService)
             .fillCellFromItem(
-                createCell(row, depth + 1, CellType.STRING),
+                createCell(depth + 1, CellType.STRING),
                 headingObj
             );
     }
@@ -108,15 +201,14 @@ public class ExcelFormatterVisitor extends Formatter {
     public void visitTable(Table tableObj) throws Throwable {
 //        final var watch = new StopWatch();
 //        watch.start();
-        final var sheet = getLastSheet(workbook);
         org.apache.poi.ss.usermodel.Cell cell;
         final var style =
                 styleService
                         .extractStyleFor(tableObj)
                         .orElse(tableObj.getStyle());
         if (StringUtils.hasText(tableObj.getLabel())) {
-            final var row = createRow(sheet, 1);
-            cell = createCell(row, 1, CellType.STRING);
+            createRow();
+            cell = createCell(1, CellType.STRING);
             cell.setCellValue(tableObj.getLabel());
             if (style instanceof TextStyle) {
                 ((ExcelStyleService) styleService).convertTextStyleToCell(cell, (TextStyle) style);
@@ -137,26 +229,15 @@ public class ExcelFormatterVisitor extends Formatter {
 
     @Override
     public void visitTableHeaderRow(TableHeaderRow tableHeaderRowObj) throws Throwable {
-        createRow(getLastSheet(workbook), 1);
+        createRow();
         this.visitComposition(tableHeaderRowObj);
     }
 
     @Override
     public void visitTableHeaderCell(TableHeaderCell tableHeaderCellObj) throws Exception {
-        final var row = getLastRow(getLastSheet(workbook));
-        final var cell = createCell(row, 1, CellType.STRING);
-        ((ExcelStyleService) styleService).handleTableCustomCell(tableHeaderCellObj, cell);
-
-        final var optStyle = styleService.extractStyleFor(tableHeaderCellObj);
-        var tableHeaderStyle = tableHeaderCellObj.getStyle();
-
-        if (optStyle.isPresent()) {
-            if (tableHeaderStyle == null) {
-                tableHeaderStyle = optStyle.get();
-            } else {
-                StyleUtils.joinWith(optStyle.get(), tableHeaderStyle);
-            }
-        }
+        final var cell = createCell(1, CellType.STRING);
+        final var tableHeaderStyle =
+            ((ExcelStyleService) styleService).handleTableCustomCell(tableHeaderCellObj, cell);
         LayoutStyle lhsStyle = null;
         if (tableHeaderStyle instanceof LayoutTextStyle) {
             lhsStyle = ((LayoutTextStyle) tableHeaderStyle).getLayoutStyle();
@@ -171,104 +252,84 @@ public class ExcelFormatterVisitor extends Formatter {
 
     @Override
     public void visitTableRow(TableRow tableRowObj) throws Throwable {
-        createRow(getLastSheet(workbook), 1);
+        createRow();
         styleService.extractStyleFor(tableRowObj);
         this.visitComposition(tableRowObj);
     }
 
     @Override
     public void visitTableCell(TableCell tableCellObj) throws Exception {
-        final var row = getLastRow(getLastSheet(workbook));
-        final var cell = createCell(row, 1, CellType.STRING);
+        final var cell = createCell(1, CellType.STRING);
         ((ExcelStyleService) styleService).handleTableCustomCell(tableCellObj, cell);
     }
 
     @Override
     public void visitSeparator(Separator separatorObj) throws Exception {
-        final var sheet = getLastSheet(workbook);
-        final var row = createRow(sheet, 1);
-        createCell(row, 1, CellType.STRING).setCellValue(""); // A new cell needs for a value
+        createRow();
+        createCell(1, CellType.STRING).setCellValue(""); // A new cell needs for a value
     }
 
     @Override
     public void visitFooter(com.reporter.domain.Footer footerObj) throws Exception {
-        final var sheet = getLastSheet(workbook);
-        final var row = createRow(sheet, 1);
-        createCell(row, 1, CellType.STRING).setCellValue("");
+        createRow();
+        createCell(1, CellType.STRING).setCellValue("");
         ((ExcelStyleService) styleService)
                 .fillCellFromItem(
-                        createCell(row, 1, CellType.STRING),
+                        createCell(1, CellType.STRING),
                         footerObj
                 );
     }
 
     /**
-     * Returns the last sheet in an Excel workbook,
+     * Returns the current sheet of the workbook,
      * if there are no sheets, then creates it
      *
-     * @param workbook excel workbook
-     * @return last page of the book
+     * @return current sheet
      */
-    private Sheet getLastSheet(Workbook workbook) {
-        if (workbook.getNumberOfSheets() == 0) {
-            workbook.createSheet();
+    private Sheet getCurrentSheet() {
+        if (currentSheet == null) {
+            createSheet(null);
         }
-        return workbook.getSheetAt(workbook.getNumberOfSheets() - 1);
+        return currentSheet;
     }
 
     /**
-     * Returns the last row of the sheet
-     * or null if the sheet is empty
+     * Creates a sheet and moves the cursor to its first row
      *
-     * @param sheet excel sheet
-     * @return last line of the sheet
+     * @param name safe sheet name or null for a default one
+     * @return created sheet
      */
-    private Row getLastRow(Sheet sheet) {
-        final int count = sheet.getPhysicalNumberOfRows();
-        return count > 0 ? sheet.getRow(count - 1) : null;
+    private Sheet createSheet(String name) {
+        final var sheet = name != null ? workbook.createSheet(name) : workbook.createSheet();
+        currentSheet = sheet;
+        nextRowIndex = 0;
+        currentRow = null;
+        return sheet;
     }
 
     /**
-     * Returns the last cell in a row
-     * or null if row is empty
+     * Creates a row below the current one on the current sheet
+     * and moves the cursor to its first cell
      *
-     * @param row excel row
-     * @return last cell of the row
+     * @return created row
      */
-    private Cell getLastCell(Row row) {
-        final int count = row.getPhysicalNumberOfCells();
-        return count > 0 ? row.getCell(count - 1) : null;
-    }
-
-    /**
-     * Create excel row
-     *
-     * @param sheet sheet on which the row is created
-     * @param rowCount offset down from the last row
-     * @return created string
-     */
-    private Row createRow(Sheet sheet, int rowCount) {
-        var row = getLastRow(sheet);
-        final var bias = sheet.getPhysicalNumberOfRows();
-        for (int i = 0; i < rowCount; i++) {
-            row = sheet.createRow(bias + i);
-        }
-        return row;
+    private Row createRow() {
+        currentRow = getCurrentSheet().createRow(nextRowIndex++);
+        nextCellIndex = 0;
+        return currentRow;
     }
 
     /**
-     * Create an Excel cell
+     * Create an Excel cell in the current row
      *
-     * @param row the row in which the cell is created
      * @param cellCount offset to the right of the last cell in the row
      * @param type cell type (usually STRING)
      * @return - created cell
      */
-    private Cell createCell(Row row, int cellCount, CellType type) {
-        Cell cell = getLastCell(row);
-        final var bias = row.getPhysicalNumberOfCells();
+    private Cell createCell(int cellCount, CellType type) {
+        Cell cell = null;
         for (int i = 0; i < cellCount; i++) {
-            cell = row.createCell(bias + i, type);
+            cell = currentRow.createCell(nextCellIndex++, type);
         }
         return cell;
     }
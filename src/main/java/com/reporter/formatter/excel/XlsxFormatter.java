@@ -4,10 +4,11 @@ import com.reporter.formatter.FormatterContext;
 import org.springframework.http.MediaType;
 import org.apache.poi.common.usermodel.fonts.FontCharset;
 import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
 import org.apache.poi.xssf.usermodel.XSSFWorkbook;
 import org.springframework.stereotype.Component;
 
-import java.util.Optional;
+import java.io.IOException;
 
 /**
  * Class for writing to .xlsx format
@@ -18,6 +19,19 @@ public class XlsxFormatter extends ExcelFormatter {
     private static final MediaType MEDIA_TYPE =
         MediaType.parseMediaType("application/vnd.openxmlformats-officedocument.spreadsheetml.sheet");
 
+    /**
+     * Writes rows through {@link SXSSFWorkbook}: only the last {@link XlsxFormatter#rowAccessWindowSize} rows
+     * of a sheet are kept in memory, older ones are flushed to a temporary file
+     */
+    protected boolean isStreaming;
+    protected int rowAccessWindowSize = SXSSFWorkbook.DEFAULT_WINDOW_SIZE;
+    protected boolean isCompressTempFiles = true;
+    /**
+     * Number of sheets of document cases written concurrently in the streaming mode,
+     * a document is written sheet by sheet unless all its parts are document cases
+     */
+    protected int sheetParallelism = 1;
+
     public XlsxFormatter() {
         super(FontCharset.DEFAULT);
     }
@@ -36,7 +50,39 @@ public class XlsxFormatter extends ExcelFormatter {
 
     @Override
     public Workbook getWorkbook() {
-        return Optional.ofNullable(workbook).orElse(new XSSFWorkbook());
+        if (workbook != null) {
+            return workbook;
+        }
+        return isStreaming
+            ? new SXSSFWorkbook(null, rowAccessWindowSize, isCompressTempFiles)
+            : new XSSFWorkbook();
+    }
+
+    /**
+     * Streaming sheets write their rows to their own temporary files and strings inline,
+     * so only they are written concurrently
+     *
+     * @return number of sheets written concurrently
+     */
+    @Override
+    protected int getParallelSheetCount() {
+        return isStreaming ? sheetParallelism : 1;
+    }
+
+    /**
+     * Writes the workbook and deletes temporary files of the streaming one
+     *
+     * @throws IOException on write error
+     */
+    @Override
+    public void cleanupResource() throws IOException {
+        try {
+            super.cleanupResource();
+        } finally {
+            if (workbook instanceof SXSSFWorkbook) {
+                ((SXSSFWorkbook) workbook).dispose();
+            }
+        }
     }
 
     @Override
@@ -48,4 +94,40 @@ public class XlsxFormatter extends ExcelFormatter {
     public MediaType getContentMediaType() {
         return MEDIA_TYPE;
     }
+
+    public boolean isStreaming() {
+        return isStreaming;
+    }
+
+    public XlsxFormatter setStreaming(boolean isStreaming) {
+        this.isStreaming = isStreaming;
+        return this;
+    }
+
+    public int getRowAccessWindowSize() {
+        return rowAccessWindowSize;
+    }
+
+    public XlsxFormatter setRowAccessWindowSize(int rowAccessWindowSize) {
+        this.rowAccessWindowSize = rowAccessWindowSize;
+        return this;
+    }
+
+    public int getSheetParallelism() {
+        return sheetParallelism;
+    }
+
+    public XlsxFormatter setSheetParallelism(int sheetParallelism) {
+        this.sheetParallelism = sheetParallelism;
+        return this;
+    }
+
+    public boolean isCompressTempFiles() {
+        return isCompressTempFiles;
+    }
+
+    public XlsxFormatter setCompressTempFiles(boolean isCompressTempFiles) {
+        this.isCompressTempFiles = isCompressTempFiles;
+        return this;
+    }
 }
@@ -1,12 +1,12 @@
 package com.reporter.formatter.excel.styles;
 
 import com.google.common.base.MoreObjects;
+import com.reporter.domain.TableCell;
 import com.reporter.domain.TextItem;
 import com.reporter.domain.styles.LayoutStyle;
 import com.reporter.domain.styles.LayoutTextStyle;
 import com.reporter.domain.styles.Style;
 import com.reporter.domain.styles.StyleService;
-import com.reporter.domain.styles.StyleUtils;
 import com.reporter.domain.styles.TextStyle;
 import com.reporter.domain.styles.constants.BorderWeight;
 import com.reporter.domain.styles.constants.Color;
@@ -19,17 +19,35 @@ import org.apache.poi.hssf.usermodel.HSSFWorkbook;
 import org.apache.poi.hssf.util.HSSFColor;
 import org.apache.poi.ss.usermodel.Cell;
 import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.CellType;
+import org.apache.poi.ss.usermodel.DataFormatter;
 import org.apache.poi.ss.usermodel.Font;
+import org.apache.poi.ss.usermodel.Sheet;
 import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.ss.util.SheetUtil;
 import org.springframework.util.StringUtils;
 
+import java.awt.font.FontRenderContext;
+import java.awt.font.TextLayout;
 import java.io.IOException;
+import java.math.BigDecimal;
 import java.text.DecimalFormat;
 import java.text.ParseException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 import static com.reporter.utils.LocalizedNumberUtils.applyDecimalFormat;
+import static com.reporter.utils.LocalizedNumberUtils.isNumber;
 
 /**
  * The class caches {@link Style} styles,
@@ -77,11 +95,79 @@ public class ExcelStyleService extends StyleService {
 
     private static HSSFPalette palette;
 
+    private static final FontRenderContext FONT_RENDER_CONTEXT = new FontRenderContext(null, true, true);
+    private static final int MAX_COLUMN_WIDTH = 255 * 256;
+    private static final String DATE_FORMAT = "yyyy-mm-dd";
+    private static final String DATE_TIME_FORMAT = "yyyy-mm-dd hh:mm:ss";
+    /**
+     * Significant digits a double keeps exactly, as excel shows numbers
+     */
+    private static final int MAX_EXACT_DIGITS = 15;
+    /**
+     * Characters of {@link DecimalFormat#toPattern()} with the same meaning in excel number formats,
+     * the exponent is translated
+     */
+    private static final String NUMBER_PATTERN_CHARS = "0#.,;%E";
+    private static final char QUOTE = '\'';
+    private static final char CURRENCY_SIGN = '\u00A4';
+    private static final char PER_MILLE_SIGN = '\u2030';
+
+    /**
+     * The cell with the longest text of a column, its style may be set after the value
+     */
+    private static class ColumnText {
+        private final Cell cell;
+        private final String text;
+
+        private ColumnText(Cell cell, String text) {
+            this.cell = cell;
+            this.text = text;
+        }
+    }
+
+    /**
+     * The longest texts of written columns of a sheet,
+     * a column stays auto width once an auto width cell is written into it
+     */
+    private static class SheetColumns {
+        private final Map<Integer, ColumnText> longestTexts = new HashMap<>();
+        private final Set<Integer> autoWidthColumns = new HashSet<>();
+        private final Set<Integer> changedColumns = new HashSet<>();
+    }
+
     private final FontCharset fontCharset;
     private final Map<LayoutStyle, CellStyle> layoutStyles = new HashMap<>();
     private final Map<TextStyle, CellStyle> textStyles = new HashMap<>();
     private final Map<LayoutTextStyle, CellStyle> layoutTextStyles = new HashMap<>();
+    /**
+     * Cell styles and fonts of the workbook by their attributes, shared with copies of the service,
+     * they are created under the lock of the workbook.
+     * The maps are replaced, never cleared, when another workbook is styled, so copies keep theirs
+     */
+    private Map<List<Object>, CellStyle> cellStyles = new ConcurrentHashMap<>();
+    private Map<List<Object>, Font> fonts = new ConcurrentHashMap<>();
+    /**
+     * Indexes of fonts whose charset is set
+     */
+    private final Set<Integer> charsetFonts = new HashSet<>();
+    /**
+     * Writes numbers, dates and booleans of table cells as typed cell values with a number format
+     * instead of formatted text
+     */
+    protected boolean isTypedCells;
+    private long createdCellStyleCount;
+    private long reusedCellStyleCount;
+    private long createdFontCount;
+    private long reusedFontCount;
     protected Map<Cell, LayoutStyle> needAdjustHeaderCells = new HashMap<>();
+    /**
+     * Written columns by sheets, only the longest text of a column is kept
+     * and measured in {@link ExcelStyleService#adjustColumnWidths()}
+     */
+    private final Map<Sheet, SheetColumns> sheetColumns = new LinkedHashMap<>();
+    private final Map<Integer, java.awt.Font> awtFonts = new HashMap<>();
+    private final DataFormatter dataFormatter = new DataFormatter();
+    private int defaultCharWidth;
     private Workbook workbook;
 
     public ExcelStyleService(FontCharset fontCharset, DecimalFormat decimalFormat) {
@@ -212,20 +298,136 @@ public class ExcelStyleService extends StyleService {
         cellStyle.setFillBackgroundColor(toExcelColor(layoutStyle.getFillBackgroundColor()));
     }
 
+    /**
+     * Sets widths of columns of the table just written:
+     * auto widths are measured first, then fixed widths of header cells are set over them
+     */
     public void adjustHeaderCells() {
-        needAdjustHeaderCells.forEach(ExcelStyleService::applyWidth);
+        needAdjustHeaderCells.forEach((cell, layoutStyle) -> {
+            if (layoutStyle.isAutoWidth()) {
+                trackWidth(cell, layoutStyle);
+            }
+        });
+        adjustColumnWidths();
+        needAdjustHeaderCells.forEach((cell, layoutStyle) -> {
+            if (!layoutStyle.isAutoWidth()) {
+                applyWidth(cell, layoutStyle);
+            }
+        });
+        needAdjustHeaderCells.clear();
+    }
+
+    /**
+     * Sets a fixed width of the cell column at once,
+     * an auto width is deferred to {@link ExcelStyleService#adjustColumnWidths()}:
+     * only the longest text of the column is kept instead of rescanning the column for every cell
+     *
+     * @param cell        native cell with a value
+     * @param layoutStyle style of the cell
+     */
+    public void trackWidth(Cell cell, LayoutStyle layoutStyle) {
+        if (!layoutStyle.isAutoWidth()) {
+            applyWidth(cell, layoutStyle);
+            return;
+        }
+        final var columns = trackText(cell);
+        if (columns.autoWidthColumns.add(cell.getColumnIndex())) {
+            columns.changedColumns.add(cell.getColumnIndex());
+        }
+    }
+
+    /**
+     * Keeps the cell text if it is the longest one of its column
+     *
+     * @param cell native cell with a value
+     * @return columns of the cell sheet
+     */
+    private SheetColumns trackText(Cell cell) {
+        final var columns = sheetColumns.computeIfAbsent(cell.getSheet(), sheet -> new SheetColumns());
+        final String text;
+        if (cell.getCellType() == CellType.STRING) {
+            text = cell.getStringCellValue();
+        } else {
+            // Number formats of the workbook are read while other sheets may create them
+            synchronized (cell.getSheet().getWorkbook()) {
+                text = dataFormatter.formatCellValue(cell);
+            }
+        }
+        if (StringUtils.hasLength(text)) {
+            final var columnText = columns.longestTexts.get(cell.getColumnIndex());
+            if (columnText == null || columnText.text.length() < text.length()) {
+                columns.longestTexts.put(cell.getColumnIndex(), new ColumnText(cell, text));
+                columns.changedColumns.add(cell.getColumnIndex());
+            }
+        }
+        return columns;
+    }
+
+    /**
+     * Sets widths of the auto width columns whose longest text changed since the last call,
+     * every column is measured by its longest text with cached font metrics
+     */
+    public void adjustColumnWidths() {
+        sheetColumns.forEach((sheet, columns) -> {
+            for (final var columnIndex : columns.changedColumns) {
+                final var columnText = columns.longestTexts.get(columnIndex);
+                if (columnText != null && columns.autoWidthColumns.contains(columnIndex)) {
+                    final var width = measureWidth(sheet.getWorkbook(), columnText) * 256;
+                    sheet.setColumnWidth(columnIndex, (int) Math.min(width, MAX_COLUMN_WIDTH));
+                }
+            }
+            columns.changedColumns.clear();
+        });
+    }
+
+    /**
+     * Measures the text as {@link Sheet#autoSizeColumn(int)} does
+     *
+     * @param wb         workbook of the column
+     * @param columnText the longest text of the column
+     * @return width in characters of the default font
+     */
+    private double measureWidth(Workbook wb, ColumnText columnText) {
+        synchronized (wb) {
+            if (defaultCharWidth <= 0) {
+                defaultCharWidth = SheetUtil.getDefaultCharWidth(wb);
+            }
+        }
+        final var awtFont =
+            awtFonts.computeIfAbsent(columnText.cell.getCellStyle().getFontIndex(), fontIndex -> {
+                synchronized (wb) {
+                    final var font = wb.getFontAt(fontIndex);
+                    return new java.awt.Font(
+                        font.getFontName(),
+                        (font.getBold() ? java.awt.Font.BOLD : 0) | (font.getItalic() ? java.awt.Font.ITALIC : 0),
+                        font.getFontHeightInPoints()
+                    );
+                }
+            });
+        double width = 0;
+        for (final var line : columnText.text.split("\n")) {
+            if (!line.isEmpty()) {
+                final var bounds = new TextLayout(line, awtFont, FONT_RENDER_CONTEXT).getBounds();
+                width = Math.max(width, bounds.getX() + bounds.getWidth());
+            }
+        }
+        return width / defaultCharWidth;
     }
 
     @Override
     public void writeStyles(Object o) {
         final Workbook workbook = (Workbook) o;
         this.workbook = workbook;
+        clearStyleCaches();
         final var style = workbook.createCellStyle();
         final var font = workbook.createFont();
         style.setFont(font);
         font.setCharSet(fontCharset.getNativeId());
         textStyles.put(null, style);
         layoutStyles.put(null, style);
+        sheetColumns.clear();
+        awtFonts.clear();
+        defaultCharWidth = 0;
     }
 
     public void fillCellFromItem(org.apache.poi.ss.usermodel.Cell cellObj, TextItem<?> item)
@@ -246,21 +448,22 @@ public class ExcelStyleService extends StyleService {
      *
      * @param tableCustomCell TableCell or TableHeaderCell
      * @param cell            native cell
+     * @return style applied to the cell
      * @throws ParseException when parsing a value in a cell
      */
-    public void handleTableCustomCell(TextItem<?> tableCustomCell, org.apache.poi.ss.usermodel.Cell cell)
+    public Style handleTableCustomCell(TextItem<?> tableCustomCell, org.apache.poi.ss.usermodel.Cell cell)
         throws Exception {
-        applyFontCharsetAndDecimalFormat(tableCustomCell, cell);
-        final var optStyle = extractStyleFor(tableCustomCell);
-        var style = tableCustomCell.getStyle();
-
-        if (optStyle.isPresent()) {
-            if (style == null) {
-                style = optStyle.get();
-            } else {
-                StyleUtils.joinWith(optStyle.get(), style);
-            }
+        final var typedValue =
+            isTypedCells && tableCustomCell instanceof TableCell
+                ? getTypedValue((TableCell) tableCustomCell)
+                : null;
+        if (typedValue == null) {
+            applyFontCharsetAndDecimalFormat(tableCustomCell, cell);
+        } else {
+            applyFontCharset(cell);
+            setTypedValue(cell, typedValue);
         }
+        final var style = resolveStyleFor(tableCustomCell, cell.getColumnIndex());
 
         if (style instanceof TextStyle) {
             convertTextStyleToCell(cell, (TextStyle) style);
@@ -269,6 +472,264 @@ public class ExcelStyleService extends StyleService {
         } else if (style instanceof LayoutTextStyle) {
             convertLayoutTextStyleToCell(cell, (LayoutTextStyle) style);
         }
+
+        if (typedValue != null) {
+            final var textStyle =
+                style instanceof LayoutTextStyle
+                    ? ((LayoutTextStyle) style).getTextStyle()
+                    : style instanceof TextStyle ? (TextStyle) style : null;
+            final var numberFormat = getNumberFormat(typedValue, textStyle);
+            final var dataFormat =
+                numberFormat != null
+                    ? toExcelNumberFormat(numberFormat)
+                    : getDateFormat(typedValue);
+            if (numberFormat != null && dataFormat == null) {
+                // The pattern has no excel counterpart, the number is written as text formatted by it
+                cell.setCellValue(numberFormat.format(typedValue));
+            } else {
+                applyDataFormat(cell, dataFormat);
+            }
+            trackText(cell);
+        }
+        return style;
+    }
+
+    /**
+     * Returns the value of the cell to be written as a numeric, date or boolean cell value:
+     * the native value of the cell or the number its text represents.
+     * Numbers that a double can't keep exactly stay text, see {@link ExcelStyleService#isExactAsDouble(String)}
+     *
+     * @param tableCell table cell
+     * @return Number, Boolean, Date, LocalDate, LocalDateTime or null if the cell is written as text
+     */
+    private static Object getTypedValue(TableCell tableCell) {
+        final var value = tableCell.getValue();
+        if (value instanceof Double || value instanceof Float) {
+            return value;
+        }
+        if (value instanceof Number) {
+            final var number =
+                value instanceof BigDecimal
+                    ? ((BigDecimal) value).toPlainString()
+                    : value.toString();
+            return isExactAsDouble(number) ? value : null;
+        }
+        if (value instanceof Boolean
+            || value instanceof Date
+            || value instanceof LocalDate
+            || value instanceof LocalDateTime
+        ) {
+            return value;
+        }
+        if (value == null) {
+            final var text = tableCell.getText();
+            if (StringUtils.hasText(text) && isNumber(text) && isExactAsDouble(text)) {
+                return new BigDecimal(text.replace(',', '.'));
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Checks that the number keeps all its digits as an excel double
+     * and is not a code with leading zeros (e.g. 00123 of a postal code or an account number)
+     *
+     * @param number string representation of a number
+     * @return true if the number may be written as a numeric cell value
+     */
+    private static boolean isExactAsDouble(String number) {
+        final var unsigned =
+            number.startsWith("-") || number.startsWith("+")
+                ? number.substring(1)
+                : number;
+        if (unsigned.length() > 1 && unsigned.charAt(0) == '0' && Character.isDigit(unsigned.charAt(1))) {
+            return false;
+        }
+        var significantDigits = 0;
+        for (var i = 0; i < unsigned.length(); i++) {
+            final var c = unsigned.charAt(i);
+            if (Character.isDigit(c) && (significantDigits > 0 || c != '0')) {
+                significantDigits++;
+            }
+        }
+        return significantDigits <= MAX_EXACT_DIGITS;
+    }
+
+    private static void setTypedValue(Cell cell, Object value) {
+        if (value instanceof Number) {
+            cell.setCellValue(((Number) value).doubleValue());
+        } else if (value instanceof Boolean) {
+            cell.setCellValue((Boolean) value);
+        } else if (value instanceof Date) {
+            cell.setCellValue((Date) value);
+        } else if (value instanceof LocalDate) {
+            cell.setCellValue((LocalDate) value);
+        } else {
+            cell.setCellValue((LocalDateTime) value);
+        }
+    }
+
+    /**
+     * Returns the format of a number value: {@link StyleService#decimalFormat} or the format of the text style
+     *
+     * @param value     typed value
+     * @param textStyle text style of the cell or null
+     * @return decimal format or null for the general one and values other than numbers
+     */
+    private DecimalFormat getNumberFormat(Object value, TextStyle textStyle) {
+        if (!(value instanceof Number)) {
+            return null;
+        }
+        return decimalFormat != null
+            ? decimalFormat
+            : textStyle != null ? textStyle.getDecimalFormat() : null;
+    }
+
+    /**
+     * Translates the pattern of the decimal format to an excel number format:
+     * literal text and the currency sign are quoted, the exponent shows only the minus sign as in java
+     *
+     * @param format decimal format
+     * @return excel number format or null if the format has no excel counterpart,
+     * e.g. per mille, a custom multiplier or grouping by other than 3 digits
+     */
+    public static String toExcelNumberFormat(DecimalFormat format) {
+        final var pattern = format.toPattern();
+        final var symbols = format.getDecimalFormatSymbols();
+        final var excelFormat = new StringBuilder(pattern.length() + 8);
+        final var literal = new StringBuilder();
+        var isQuoted = false;
+        var isPercent = false;
+        for (var i = 0; i < pattern.length(); i++) {
+            final var c = pattern.charAt(i);
+            if (c == QUOTE) {
+                if (i + 1 < pattern.length() && pattern.charAt(i + 1) == QUOTE) {
+                    literal.append(QUOTE);
+                    i++;
+                } else {
+                    isQuoted = !isQuoted;
+                }
+            } else if (isQuoted) {
+                literal.append(c);
+            } else if (c == CURRENCY_SIGN) {
+                if (i + 1 < pattern.length() && pattern.charAt(i + 1) == CURRENCY_SIGN) {
+                    literal.append(symbols.getInternationalCurrencySymbol());
+                    i++;
+                } else {
+                    literal.append(symbols.getCurrencySymbol());
+                }
+            } else if (c == PER_MILLE_SIGN) {
+                return null;
+            } else if (c == 'E' && !isExponent(pattern, i, literal)) {
+                literal.append(c);
+            } else if (NUMBER_PATTERN_CHARS.indexOf(c) >= 0) {
+                appendExcelLiteral(excelFormat, literal);
+                if (c == 'E') {
+                    excelFormat.append("E-");
+                } else {
+                    excelFormat.append(c);
+                }
+                isPercent |= c == '%';
+            } else {
+                literal.append(c);
+            }
+        }
+        appendExcelLiteral(excelFormat, literal);
+        if (format.getMultiplier() != (isPercent ? 100 : 1)
+            || format.isGroupingUsed() && format.getGroupingSize() != 3
+        ) {
+            return null;
+        }
+        return excelFormat.toString();
+    }
+
+    /**
+     * Checks that the character E at the index is the exponent of the number and not literal text
+     *
+     * @param pattern decimal format pattern
+     * @param index   index of E
+     * @param literal literal text preceding E
+     * @return true if E follows a digit and precedes the exponent digits
+     */
+    private static boolean isExponent(String pattern, int index, StringBuilder literal) {
+        return literal.length() == 0
+            && index > 0 && "0#.".indexOf(pattern.charAt(index - 1)) >= 0
+            && index + 1 < pattern.length() && pattern.charAt(index + 1) == '0';
+    }
+
+    /**
+     * Appends the literal text in double quotes, quotes of the text itself are escaped
+     *
+     * @param excelFormat excel number format
+     * @param literal     literal text, cleared
+     */
+    private static void appendExcelLiteral(StringBuilder excelFormat, StringBuilder literal) {
+        if (literal.length() == 0) {
+            return;
+        }
+        excelFormat.append('"').append(literal.toString().replace("\"", "\"\\\"\"")).append('"');
+        literal.setLength(0);
+    }
+
+    /**
+     * Returns the excel format of a date value
+     *
+     * @param value typed value
+     * @return date format or null for values other than dates
+     */
+    private static String getDateFormat(Object value) {
+        if (value instanceof java.sql.Date || value instanceof LocalDate) {
+            return DATE_FORMAT;
+        }
+        if (value instanceof Date || value instanceof LocalDateTime) {
+            return DATE_TIME_FORMAT;
+        }
+        return null;
+    }
+
+    /**
+     * Sets the cell style with the number format,
+     * the style is derived from the current style of the cell once per workbook
+     *
+     * @param cell       cell with a style
+     * @param dataFormat number format or null to keep the style
+     */
+    private void applyDataFormat(Cell cell, String dataFormat) {
+        if (dataFormat == null) {
+            return;
+        }
+        final var baseStyle = cell.getCellStyle();
+        final var key = Arrays.<Object>asList(baseStyle.getIndex(), dataFormat);
+        var cellStyle = cellStyles.get(key);
+        if (cellStyle == null) {
+            synchronized (workbook) {
+                cellStyle = cellStyles.get(key);
+                if (cellStyle == null) {
+                    cellStyle = workbook.createCellStyle();
+                    cellStyle.cloneStyleFrom(baseStyle);
+                    cellStyle.setDataFormat(workbook.createDataFormat().getFormat(dataFormat));
+                    cellStyles.put(key, cellStyle);
+                    createdCellStyleCount++;
+                }
+            }
+        } else {
+            reusedCellStyleCount++;
+        }
+        cell.setCellStyle(cellStyle);
+    }
+
+    /**
+     * Sets the charset of the cell font, once per font
+     *
+     * @param cell native cell
+     */
+    private void applyFontCharset(Cell cell) {
+        final var fontIndex = cell.getCellStyle().getFontIndex();
+        if (charsetFonts.add(fontIndex)) {
+            synchronized (workbook) {
+                workbook.getFontAt(fontIndex).setCharSet(fontCharset.getNativeId());
+            }
+        }
     }
 
     public Cell applyFontCharsetAndDecimalFormat(
@@ -276,88 +737,232 @@ public class ExcelStyleService extends StyleService {
         org.apache.poi.ss.usermodel.Cell cell
     )
         throws ParseException {
-        workbook.getFontAt(cell.getCellStyle().getFontIndex()).setCharSet(fontCharset.getNativeId());
+        applyFontCharset(cell);
 
         if (StringUtils.hasText(tableCustomCell.getText())) {
             cell.setCellValue(applyDecimalFormat(tableCustomCell, decimalFormat));
         } else {
             cell.setCellValue("");
         }
+        trackText(cell);
         return cell;
     }
 
     public void convertTextStyleToCell(Cell cell, TextStyle textStyle) {
-        final var wb = cell.getSheet().getWorkbook();
-        CellStyle cellStyle = wb.createCellStyle();
-        final Font font;
-        if (textStyles.containsKey(textStyle)) {
-            cellStyle = textStyles.get(textStyle);
+        useWorkbook(cell.getSheet().getWorkbook());
+        var cellStyle = textStyles.get(textStyle);
+        if (cellStyle == null) {
+            cellStyle = internCellStyle(createFontFromTextStyle(textStyle, workbook), null);
+            textStyles.put(snapshot(textStyle), cellStyle);
         } else {
-            font = createFontFromTextStyle(textStyle, wb);
-            cellStyle.setFont(font);
+            reusedCellStyleCount++;
         }
         cell.setCellStyle(cellStyle);
     }
 
     public void convertLayoutStyleToCell(Cell cell, LayoutStyle layoutStyle) {
-        final CellStyle cellStyle;
-
-        if (layoutStyles.containsKey(layoutStyle)) {
-            cellStyle = layoutStyles.get(layoutStyle);
+        useWorkbook(cell.getSheet().getWorkbook());
+        var cellStyle = layoutStyles.get(layoutStyle);
+        if (cellStyle == null) {
+            cellStyle = internCellStyle(null, layoutStyle);
+            layoutStyles.put(snapshot(layoutStyle), cellStyle);
         } else {
-            cellStyle = cell.getSheet().getWorkbook().createCellStyle();
-            convertGround(cellStyle, layoutStyle);
-            convertBorders(cellStyle, layoutStyle);
-            convertBorderColors(cellStyle, layoutStyle);
-            convertHorizontalAlignment(cellStyle, layoutStyle);
-            convertVerticalAlignment(cellStyle, layoutStyle);
-            convertFit(cellStyle, layoutStyle);
-            layoutStyles.put(layoutStyle, cellStyle);
+            reusedCellStyleCount++;
         }
         cell.setCellStyle(cellStyle);
-        applyWidth(cell, layoutStyle);
+        trackWidth(cell, layoutStyle);
     }
 
     public void convertLayoutTextStyleToCell(Cell cell, LayoutTextStyle layoutTextStyle) {
-        final CellStyle cellStyle;
-        final var wb = cell.getSheet().getWorkbook();
-        final var textStyle = layoutTextStyle.getTextStyle();
+        useWorkbook(cell.getSheet().getWorkbook());
         final var layoutStyle = layoutTextStyle.getLayoutStyle();
-
-        if (layoutTextStyles.containsKey(layoutTextStyle)) {
-            cellStyle = layoutTextStyles.get(layoutTextStyle);
+        var cellStyle = layoutTextStyles.get(layoutTextStyle);
+        if (cellStyle == null) {
+            cellStyle =
+                internCellStyle(
+                    createFontFromTextStyle(layoutTextStyle.getTextStyle(), workbook),
+                    layoutStyle
+                );
+            layoutTextStyles.put(snapshot(layoutTextStyle), cellStyle);
         } else {
-            cellStyle = wb.createCellStyle();
-            final Font font = createFontFromTextStyle(textStyle, wb);
-            cellStyle.setFont(font);
-
-            convertGround(cellStyle, layoutStyle);
-            convertBorders(cellStyle, layoutStyle);
-            convertBorderColors(cellStyle, layoutStyle);
-            convertHorizontalAlignment(cellStyle, layoutStyle);
-            convertVerticalAlignment(cellStyle, layoutStyle);
-            convertFit(cellStyle, layoutStyle);
-            layoutTextStyles.put(layoutTextStyle, cellStyle);
+            reusedCellStyleCount++;
         }
         cell.setCellStyle(cellStyle);
-        applyWidth(cell, layoutStyle);
+        trackWidth(cell, layoutStyle);
     }
 
+    /**
+     * Returns the font of the workbook looking like the text style,
+     * the font is created once per workbook
+     *
+     * @param textStyle text style
+     * @param wb        workbook
+     * @return font
+     */
     public Font createFontFromTextStyle(TextStyle textStyle, Workbook wb) {
-        final Font font;
-
-        font = wb.createFont();
+        useWorkbook(wb);
         final var fontName = textStyle.getFontNameResource();
-        if (StringUtils.hasText(fontName)) {
-            font.setFontName(fontName);
+        final var key =
+            Arrays.<Object>asList(
+                StringUtils.hasText(fontName) ? fontName : null,
+                textStyle.isBold(),
+                textStyle.getColor(),
+                textStyle.getFontSize(),
+                textStyle.isItalic(),
+                textStyle.getUnderline()
+            );
+        var font = fonts.get(key);
+        if (font != null) {
+            reusedFontCount++;
+            return font;
         }
-        font.setBold(textStyle.isBold());
-        font.setColor(toExcelColor(textStyle.getColor()));
-        font.setFontHeightInPoints(textStyle.getFontSize());
-        font.setItalic(textStyle.isItalic());
-        font.setUnderline(textStyle.getUnderline());
+        synchronized (wb) {
+            font = fonts.get(key);
+            if (font == null) {
+                font = wb.createFont();
+                if (StringUtils.hasText(fontName)) {
+                    font.setFontName(fontName);
+                }
+                font.setBold(textStyle.isBold());
+                font.setColor(toExcelColor(textStyle.getColor()));
+                font.setFontHeightInPoints(textStyle.getFontSize());
+                font.setItalic(textStyle.isItalic());
+                font.setUnderline(textStyle.getUnderline());
+                font.setCharSet(fontCharset.getNativeId());
+                fonts.put(key, font);
+                createdFontCount++;
+            }
+            return font;
+        }
+    }
+
+    /**
+     * Returns the cell style of the workbook with the font and the layout,
+     * styles differing only in attributes that are not a part of a cell style (e.g. width) share one cell style
+     *
+     * @param font        font or null
+     * @param layoutStyle layout or null
+     * @return cell style
+     */
+    private CellStyle internCellStyle(Font font, LayoutStyle layoutStyle) {
+        final var key = new ArrayList<>();
+        key.add(font != null ? font.getIndex() : null);
+        if (layoutStyle != null) {
+            key.addAll(
+                Arrays.asList(
+                    layoutStyle.getFillForegroundColor(),
+                    layoutStyle.getFillPattern(),
+                    layoutStyle.getFillBackgroundColor(),
+                    layoutStyle.getBorderTop().getWeight(),
+                    layoutStyle.getBorderLeft().getWeight(),
+                    layoutStyle.getBorderRight().getWeight(),
+                    layoutStyle.getBorderBottom().getWeight(),
+                    layoutStyle.getBorderTop().getColor(),
+                    layoutStyle.getBorderLeft().getColor(),
+                    layoutStyle.getBorderRight().getColor(),
+                    layoutStyle.getBorderBottom().getColor(),
+                    layoutStyle.getHorAlignment(),
+                    layoutStyle.getVertAlignment(),
+                    layoutStyle.isShrinkToFit()
+                )
+            );
+        }
+        var cellStyle = cellStyles.get(key);
+        if (cellStyle != null) {
+            reusedCellStyleCount++;
+            return cellStyle;
+        }
+        synchronized (workbook) {
+            cellStyle = cellStyles.get(key);
+            if (cellStyle == null) {
+                cellStyle = workbook.createCellStyle();
+                if (font != null) {
+                    cellStyle.setFont(font);
+                }
+                if (layoutStyle != null) {
+                    convertGround(cellStyle, layoutStyle);
+                    convertBorders(cellStyle, layoutStyle);
+                    convertBorderColors(cellStyle, layoutStyle);
+                    convertHorizontalAlignment(cellStyle, layoutStyle);
+                    convertVerticalAlignment(cellStyle, layoutStyle);
+                    convertFit(cellStyle, layoutStyle);
+                }
+                cellStyles.put(key, cellStyle);
+                createdCellStyleCount++;
+            }
+            return cellStyle;
+        }
+    }
 
-        return font;
+    /**
+     * Returns a service styling cells of the same workbook on another thread,
+     * e.g. of another sheet: registered styles are shared, caches of cell styles are copied,
+     * cell styles and fonts of the workbook are shared until either service styles another workbook
+     *
+     * @return copy of the service
+     */
+    public ExcelStyleService copy() {
+        final var copy =
+            new ExcelStyleService(
+                fontCharset,
+                decimalFormat != null ? (DecimalFormat) decimalFormat.clone() : null
+            );
+        copy.styles.addAll(styles);
+        copy.fontService = fontService;
+        copy.isTypedCells = isTypedCells;
+        copy.workbook = workbook;
+        copy.textStyles.putAll(textStyles);
+        copy.layoutStyles.putAll(layoutStyles);
+        copy.layoutTextStyles.putAll(layoutTextStyles);
+        copy.charsetFonts.addAll(charsetFonts);
+        copy.cellStyles = cellStyles;
+        copy.fonts = fonts;
+        return copy;
+    }
+
+    /**
+     * Adds counters of created and reused cell styles and fonts of the copy
+     *
+     * @param copy copy of the service made by {@link ExcelStyleService#copy()}
+     * @return ExcelStyleService
+     */
+    public ExcelStyleService addCountersOf(ExcelStyleService copy) {
+        createdCellStyleCount += copy.createdCellStyleCount;
+        reusedCellStyleCount += copy.reusedCellStyleCount;
+        createdFontCount += copy.createdFontCount;
+        reusedFontCount += copy.reusedFontCount;
+        return this;
+    }
+
+    /**
+     * Cached cell styles and fonts belong to one workbook, they are dropped when cells of another one are styled
+     *
+     * @param wb workbook of the styled cell
+     */
+    private void useWorkbook(Workbook wb) {
+        if (workbook != wb) {
+            workbook = wb;
+            clearStyleCaches();
+        }
+    }
+
+    private void clearStyleCaches() {
+        textStyles.clear();
+        layoutStyles.clear();
+        layoutTextStyles.clear();
+        cellStyles = new ConcurrentHashMap<>();
+        fonts = new ConcurrentHashMap<>();
+        charsetFonts.clear();
+    }
+
+    /**
+     * Freezes the style used as a cache key, so changes of the original style do not affect the cache
+     *
+     * @param style style
+     * @return frozen copy of the style
+     */
+    private static <T extends Style> T snapshot(T style) {
+        return style.freeze();
     }
 
     @Override
@@ -369,10 +974,39 @@ public class ExcelStyleService extends StyleService {
                 .add("layoutStyles", layoutStyles)
                 .add("textStyles", textStyles)
                 .add("layoutTextStyles", layoutTextStyles)
+                .add("createdCellStyleCount", createdCellStyleCount)
+                .add("reusedCellStyleCount", reusedCellStyleCount)
+                .add("createdFontCount", createdFontCount)
+                .add("reusedFontCount", reusedFontCount)
                 .add("parent", super.toString())
                 .toString();
     }
 
+    public boolean isTypedCells() {
+        return isTypedCells;
+    }
+
+    public ExcelStyleService setTypedCells(boolean isTypedCells) {
+        this.isTypedCells = isTypedCells;
+        return this;
+    }
+
+    public long getCreatedCellStyleCount() {
+        return createdCellStyleCount;
+    }
+
+    public long getReusedCellStyleCount() {
+        return reusedCellStyleCount;
+    }
+
+    public long getCreatedFontCount() {
+        return createdFontCount;
+    }
+
+    public long getReusedFontCount() {
+        return reusedFontCount;
+    }
+
     public Map<Cell, LayoutStyle> getNeedAdjustHeaderCells() {
         return needAdjustHeaderCells;
     }
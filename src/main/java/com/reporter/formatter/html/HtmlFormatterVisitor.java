@@ -71,6 +71,7 @@ public class HtmlFormatterVisitor extends Formatter {
     @Override
     public void visitDocument(Document documentObj) throws Throwable {
         styleService = getStyleService();
+        styleService.clearResolvedStyles();
         outputStreamWriter = new OutputStreamWriter(outputStream, encoding);
         tagCreator = new TagCreator(outputStreamWriter, decimalFormat);
         tagCreator.write("<!doctype html>");
@@ -267,16 +267,7 @@ public class HtmlStyleService extends StyleService {
      * @return cell style
      */
     public Style handleCustomTableCellStyle(DocumentItem tableCustomCell) throws Exception {
-        final var optStyle = extractStyleFor(tableCustomCell);
-        var style = tableCustomCell.getStyle();
-        if (optStyle.isPresent()) {
-            if (style == null) {
-                style = optStyle.get();
-            } else {
-                StyleUtils.joinWith(optStyle.get(), style);
-            }
-        }
-        return style;
+        return resolveStyleFor(tableCustomCell, UNKNOWN_COLUMN);
     }
 
     /**
@@ -307,9 +298,7 @@ public class HtmlStyleService extends StyleService {
             final var gluedStyles = new ArrayList<>(styles);
             for (final var c : cellStyles) {
                 for (final var r : rowStyles) {
-                    final var rs = r.clone();
-                    StyleUtils.joinWith(c, rs);
-                    gluedStyles.add(rs);
+                    gluedStyles.add(StyleUtils.merge(c, r));
                 }
             }
 
@@ -64,6 +64,7 @@ public class PdfFormatterVisitor extends Formatter {
     @Override
     public void visitDocument(Document documentObj) throws Throwable {
         styleService = getStyleService();
+        styleService.clearResolvedStyles();
         writer = new PdfWriter(outputStream);
         pdf = new PdfDocument(writer);
 
@@ -324,15 +324,7 @@ public final class PdfStyleService extends StyleService {
         final var text = new Text(LocalizedNumberUtils.applyDecimalFormat(tableCustomCell, decimalFormat));
         final var paragraph = new com.itextpdf.layout.element.Paragraph(text);
         final var cell = new Cell().add(paragraph);
-        final var optStyle = extractStyleFor(tableCustomCell);
-        var style = tableCustomCell.getStyle();
-        if (optStyle.isPresent()) {
-            if (style == null) {
-                style = optStyle.get();
-            } else {
-                StyleUtils.joinWith(optStyle.get(), style);
-            }
-        }
+        final var style = resolveStyleFor(tableCustomCell, UNKNOWN_COLUMN);
         convertStyleToElement(style, text, cell);
         return cell;
     }
@@ -430,7 +422,7 @@ public final class PdfStyleService extends StyleService {
                         );
                 }
             }
-            textStyles.put(textStyle, font);
+            textStyles.put(textStyle.freeze(), font);
         }
         final var useTtfAttributes = textStyle.isUseTtfFontAttributes();
         if (font != null) {
@@ -1,6 +1,7 @@
 package com.reporter.utils;
 
 import com.reporter.domain.TextItem;
+import com.reporter.domain.styles.Style;
 import com.reporter.domain.styles.TextStyle;
 import org.springframework.util.StringUtils;
 
@@ -33,8 +34,14 @@ public final class LocalizedNumberUtils {
     }
 
     public static String applyDecimalFormat(TextItem<?> textItem, DecimalFormat decimalFormat) throws ParseException {
-        final var text = textItem.getText();
-        final var style = textItem.getStyle();
+        return applyDecimalFormat(textItem.getText(), textItem.getStyle(), decimalFormat);
+    }
+
+    /**
+     * Same as {@link #applyDecimalFormat(TextItem, DecimalFormat)} for text and style detached from the item.
+     */
+    public static String applyDecimalFormat(String text, Style style, DecimalFormat decimalFormat)
+        throws ParseException {
         if (style instanceof TextStyle && StringUtils.hasText(text) && isNumber(text)) {
             final var textStyle = (TextStyle) style;
             final var format =
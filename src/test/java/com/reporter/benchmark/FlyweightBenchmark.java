@@ -0,0 +1,138 @@
+package com.reporter.benchmark;
+
+import com.reporter.domain.ReportTable;
+import com.reporter.domain.Table;
+import com.reporter.domain.TableCell;
+import com.reporter.domain.TableRow;
+import com.reporter.domain.db.QueryTable;
+import com.reporter.formatter.FormatterVisitor;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Allocation of streaming {@link QueryTable} and lazy {@link ReportTable} visits
+ * with and without flyweight rows, compare gc.alloc.rate.norm of the GC profiler.
+ * Run with {@code mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=com.reporter.benchmark.FlyweightBenchmark}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FlyweightBenchmark {
+    private static final int ROWS = 10_000;
+
+    public static class Entity {
+        protected long id;
+        protected String name;
+        protected Double amount;
+    }
+
+    /**
+     * Visitor reading texts of all cells as a formatter does
+     */
+    private static class TextVisitor extends FormatterVisitor {
+        private long length;
+
+        @Override
+        public void visitTable(Table tableObj) throws Throwable {
+            visitComposition(tableObj);
+        }
+
+        @Override
+        public void visitTableRow(TableRow tableRowObj) throws Throwable {
+            visitComposition(tableRowObj);
+        }
+
+        @Override
+        public void visitTableCell(TableCell tableCellObj) {
+            final var text = tableCellObj.getText();
+            length += text != null ? text.length() : 0;
+        }
+    }
+
+    @Param({"false", "true"})
+    public boolean isFlyweight;
+
+    private List<Entity> items;
+    private SingleConnectionDataSource dataSource;
+    private NamedParameterJdbcTemplate jdbcTemplate;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        items = new ArrayList<>(ROWS);
+        for (int i = 0; i < ROWS; i++) {
+            final var entity = new Entity();
+            entity.id = i;
+            entity.name = "name" + i % 100;
+            entity.amount = i * 1.5;
+            items.add(entity);
+        }
+        dataSource = new SingleConnectionDataSource("jdbc:h2:mem:flyweight", true);
+        jdbcTemplate = new NamedParameterJdbcTemplate(dataSource);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        dataSource.destroy();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public long reportTable() throws Throwable {
+        final var visitor = new TextVisitor();
+        ReportTable.create()
+            .setTableHeaderRowFromData(true)
+            .setFlyweight(isFlyweight)
+            .addDataIterator(items.iterator())
+            .accept(visitor);
+        return visitor.length;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public long queryTable() throws Throwable {
+        final var visitor = new TextVisitor();
+        QueryTable.create(jdbcTemplate)
+            .setTableHeaderRowFromData(true)
+            .setStreaming(true)
+            .setFlyweight(isFlyweight)
+            .setFetchSize(1000)
+            .setQuery("select x, 'name' || mod(x, 100) as name, x * 1.5 as amount from system_range(1, " + ROWS + ")")
+            .accept(visitor);
+        return visitor.length;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(
+            new OptionsBuilder()
+                .include(FlyweightBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build()
+        ).run();
+    }
+}
@@ -0,0 +1,125 @@
+package com.reporter.benchmark;
+
+import com.reporter.domain.ReportTable;
+import com.reporter.domain.Table;
+import com.reporter.domain.TableCell;
+import com.reporter.domain.TableRow;
+import com.reporter.formatter.FormatterVisitor;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.beans.PropertyAccessorFactory;
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Rows per second of {@link ReportTable} mapping with cached accessors
+ * against the former per-row field introspection.
+ * Run with {@code mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=com.reporter.benchmark.ReportTableBenchmark}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ReportTableBenchmark {
+    private static final int ROWS = 10_000;
+
+    public static class Entity {
+        protected long id;
+        protected String name;
+        protected String legalPersonName;
+        protected Integer filialId;
+        protected Double amount;
+        protected String comment;
+    }
+
+    private final FormatterVisitor visitor = new FormatterVisitor() {
+        @Override
+        public void visitTable(Table tableObj) {
+        }
+    };
+
+    private List<Entity> items;
+
+    @Setup
+    public void setup() {
+        items = new ArrayList<>(ROWS);
+        for (int i = 0; i < ROWS; i++) {
+            final var entity = new Entity();
+            entity.id = i;
+            entity.name = "name" + i;
+            entity.legalPersonName = "legal person " + i;
+            entity.filialId = i % 100;
+            entity.amount = i * 1.5;
+            entity.comment = i % 3 == 0 ? null : "comment";
+            items.add(entity);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public ReportTable cachedAccessors() throws Throwable {
+        return ReportTable.create()
+            .setTableHeaderRowFromData(true)
+            .addDataList(items)
+            .accept(visitor);
+    }
+
+    /**
+     * Mapping as done before accessor plans: field names and a field accessor per row
+     */
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public Table perRowReflection() {
+        final var table = Table.create();
+        final var aliasNames =
+            Arrays.stream(Entity.class.getDeclaredFields())
+                .map(Field::getName)
+                .collect(Collectors.toList());
+        for (final var docItem : items) {
+            final var tr = TableRow.create();
+            final var propAcc = PropertyAccessorFactory.forDirectFieldAccess(docItem);
+            final var fieldNames =
+                Arrays.stream(docItem.getClass().getDeclaredFields())
+                    .map(Field::getName)
+                    .collect(Collectors.toList());
+            for (final var name : aliasNames) {
+                if (fieldNames.contains(name)) {
+                    final var value = propAcc.getPropertyValue(name);
+                    tr.addPart(TableCell.create(value != null ? value.toString() : ""));
+                } else {
+                    tr.addPart(TableCell.create(""));
+                }
+            }
+            table.addPart(tr);
+        }
+        return table;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(
+            new OptionsBuilder()
+                .include(ReportTableBenchmark.class.getSimpleName())
+                .build()
+        ).run();
+    }
+}
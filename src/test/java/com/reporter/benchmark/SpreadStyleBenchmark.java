@@ -0,0 +1,107 @@
+package com.reporter.benchmark;
+
+import com.reporter.domain.CompositionPart;
+import com.reporter.domain.Table;
+import com.reporter.domain.TableCell;
+import com.reporter.domain.TableRow;
+import com.reporter.domain.styles.BorderStyle;
+import com.reporter.domain.styles.LayoutStyle;
+import com.reporter.domain.styles.LayoutTextStyle;
+import com.reporter.domain.styles.Style;
+import com.reporter.domain.styles.StyleCondition;
+import com.reporter.domain.styles.TextStyle;
+import com.reporter.domain.styles.constants.BorderWeight;
+import com.reporter.domain.styles.constants.Color;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time and allocation of spreading a cell style to a 100k-row table by
+ * {@link CompositionPart#spreadStyleToParts} (a clone per cell) and
+ * {@link CompositionPart#spreadSharedStyleToParts} (one frozen style, serial and parallel),
+ * compare gc.alloc.rate.norm of the GC profiler.
+ * Run with {@code mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=com.reporter.benchmark.SpreadStyleBenchmark}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SpreadStyleBenchmark {
+    private static final int ROWS = 100_000;
+    private static final int COLUMNS = 5;
+
+    @Param({"cloned", "shared", "sharedParallel"})
+    public String mode;
+
+    private Table table;
+    private Style style;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        table = Table.create();
+        for (int i = 0; i < ROWS; i++) {
+            final var row = TableRow.create();
+            for (int j = 0; j < COLUMNS; j++) {
+                row.addPart(TableCell.create("Cell " + i + "." + j));
+            }
+            table.addPart(row);
+        }
+        style = LayoutTextStyle.create(
+            TextStyle.create().setBold(true),
+            LayoutStyle.create().setBorderBottom(BorderStyle.create(Color.BLACK, BorderWeight.THIN))
+        );
+        style.setCondition(StyleCondition.create(TableCell.class));
+    }
+
+    @Setup(Level.Invocation)
+    public void clearStyles() {
+        for (final var row : table.getParts()) {
+            for (final var cell : row.getParts()) {
+                cell.setStyle(null);
+            }
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public Table spreadStyle() throws CloneNotSupportedException {
+        switch (mode) {
+            case "shared":
+                return table.spreadSharedStyleToParts(style);
+            case "sharedParallel":
+                return table.spreadSharedStyleToParts(style, -1, ForkJoinPool.commonPool());
+            default:
+                return table.spreadStyleToParts(style);
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(
+            new OptionsBuilder()
+                .include(SpreadStyleBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build()
+        ).run();
+    }
+}
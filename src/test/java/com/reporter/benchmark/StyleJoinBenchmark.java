@@ -0,0 +1,116 @@
+package com.reporter.benchmark;
+
+import com.reporter.domain.Document;
+import com.reporter.domain.Table;
+import com.reporter.domain.TableCell;
+import com.reporter.domain.TableHeaderCell;
+import com.reporter.domain.TableHeaderRow;
+import com.reporter.domain.TableRow;
+import com.reporter.domain.styles.LayoutStyle;
+import com.reporter.domain.styles.LayoutTextStyle;
+import com.reporter.domain.styles.StyleCondition;
+import com.reporter.domain.styles.TextStyle;
+import com.reporter.domain.styles.constants.Color;
+import com.reporter.domain.styles.constants.FillPattern;
+import com.reporter.domain.styles.constants.HorAlignment;
+import com.reporter.formatter.Formatter;
+import com.reporter.formatter.excel.XlsxFormatter;
+import com.reporter.formatter.html.HtmlFormatter;
+import com.reporter.formatter.pdf.PdfFormatter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time of writing a table whose cells have own styles joined with a registered cell style
+ * ({@link com.reporter.domain.styles.StyleUtils#joinWith}) by the xlsx, html and pdf formatters.
+ * Run with {@code mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=com.reporter.benchmark.StyleJoinBenchmark}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class StyleJoinBenchmark {
+    private static final int ROWS = 500;
+    private static final int COLUMNS = 5;
+
+    @Param({"xlsx", "html", "pdf"})
+    public String format;
+
+    private Document document;
+
+    @Setup
+    public void setup() {
+        final var headerRow = TableHeaderRow.create();
+        for (int j = 0; j < COLUMNS; j++) {
+            headerRow.addPart(TableHeaderCell.create().setText("Column " + j));
+        }
+        final var table = Table.create(headerRow);
+        for (int i = 0; i < ROWS; i++) {
+            final var row = TableRow.create();
+            for (int j = 0; j < COLUMNS; j++) {
+                row.addPart(
+                    TableCell.create()
+                        .setText("Cell " + i + "." + j)
+                        .setStyle(LayoutTextStyle.create(
+                            TextStyle.create().setBold(j % 2 == 0),
+                            LayoutStyle.create().setHorAlignment(HorAlignment.RIGHT)
+                        ))
+                );
+            }
+            table.addPart(row);
+        }
+        document = Document.create().setLabel("benchmark").addPart(table);
+    }
+
+    private Formatter createFormatter() throws Exception {
+        switch (format) {
+            case "html":
+                return HtmlFormatter.create();
+            case "pdf":
+                return PdfFormatter.create();
+            default:
+                return XlsxFormatter.create();
+        }
+    }
+
+    @Benchmark
+    public long writeTable() throws Throwable {
+        final var formatter = createFormatter();
+        formatter.getStyleService().addStyles(
+            LayoutTextStyle.create(
+                TextStyle.create().setColor(Color.BLUE).setFontSize((short) 12),
+                LayoutStyle.create()
+                    .setFillPattern(FillPattern.SOLID_FOREGROUND)
+                    .setFillForegroundColor(Color.GREY_25_PERCENT)
+            ).setCondition(StyleCondition.create(TableCell.class))
+        );
+        try (final var documentHolder = formatter.handle(document)) {
+            return documentHolder.getResource().contentLength();
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(
+            new OptionsBuilder()
+                .include(StyleJoinBenchmark.class.getSimpleName())
+                .build()
+        ).run();
+    }
+}
@@ -0,0 +1,113 @@
+package com.reporter.benchmark;
+
+import com.reporter.domain.DocumentItem;
+import com.reporter.domain.Heading;
+import com.reporter.domain.Paragraph;
+import com.reporter.domain.Table;
+import com.reporter.domain.TableCell;
+import com.reporter.domain.TableHeaderCell;
+import com.reporter.domain.TableRow;
+import com.reporter.domain.Title;
+import com.reporter.domain.styles.Style;
+import com.reporter.domain.styles.StyleCondition;
+import com.reporter.domain.styles.TextStyle;
+import com.reporter.formatter.html.styles.HtmlStyleService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+
+/**
+ * Style resolution of table cells with 50 registered styles:
+ * indexed {@link com.reporter.domain.styles.StyleService#extractStyleFor} against the linear scan.
+ * Run with {@code mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=com.reporter.benchmark.StyleServiceBenchmark}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class StyleServiceBenchmark {
+    private static final int STYLES = 50;
+    private static final int CELLS = 1_000;
+
+    private static final Class<?>[] CONDITION_CLASSES = {
+        Title.class, Heading.class, Paragraph.class, Table.class, TableRow.class,
+        TableHeaderCell.class, TableCell.class
+    };
+
+    private final HtmlStyleService styleService = HtmlStyleService.create();
+    private final List<TableCell> cells = new ArrayList<>();
+
+    @Setup
+    public void setup() {
+        for (int i = 0; i < STYLES - 1; i++) {
+            final var index = i;
+            final Predicate<DocumentItem> predicate = item -> System.identityHashCode(item) == index;
+            styleService.addStyles(
+                TextStyle.create().setCondition(
+                    StyleCondition.create(CONDITION_CLASSES[i % CONDITION_CLASSES.length], predicate)
+                )
+            );
+        }
+        styleService.addStyles(TextStyle.create());
+        for (int i = 0; i < CELLS; i++) {
+            cells.add(TableCell.create("cell " + i));
+        }
+    }
+
+    /**
+     * Resolution as it was before indexing, evaluating every style
+     */
+    private Optional<Style> extractStyleLinear(DocumentItem item) {
+        return styleService.getStyles()
+            .stream()
+            .filter(s -> {
+                if (s.getCondition() != null) {
+                    final var passCondition = s.getCondition().test(item);
+                    return passCondition && item.getClass().isAssignableFrom(s.getCondition().getClazz());
+                }
+                return true;
+            })
+            .findFirst();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(CELLS)
+    public void linear(Blackhole blackhole) {
+        for (final var cell : cells) {
+            blackhole.consume(extractStyleLinear(cell));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(CELLS)
+    public void indexed(Blackhole blackhole) {
+        for (final var cell : cells) {
+            blackhole.consume(styleService.extractStyleFor(cell));
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(StyleServiceBenchmark.class.getSimpleName()).build()).run();
+    }
+}
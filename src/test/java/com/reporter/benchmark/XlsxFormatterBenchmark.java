@@ -0,0 +1,87 @@
+package com.reporter.benchmark;
+
+import com.reporter.domain.Document;
+import com.reporter.domain.DocumentCase;
+import com.reporter.domain.Table;
+import com.reporter.domain.TableCell;
+import com.reporter.domain.TableHeaderCell;
+import com.reporter.domain.TableHeaderRow;
+import com.reporter.domain.TableRow;
+import com.reporter.formatter.excel.XlsxFormatter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time of writing a 200k-row table by {@link XlsxFormatter} in the default and the streaming mode.
+ * Run with {@code mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=com.reporter.benchmark.XlsxFormatterBenchmark}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgs = "-Xmx4g")
+public class XlsxFormatterBenchmark {
+    private static final int ROWS = 200_000;
+    private static final int COLUMNS = 5;
+
+    @Param({"false", "true"})
+    public boolean isStreaming;
+
+    private Table table;
+
+    @Setup
+    public void setup() {
+        final var headerRow = TableHeaderRow.create();
+        for (int j = 0; j < COLUMNS; j++) {
+            headerRow.addPart(TableHeaderCell.create().setText("Column " + j));
+        }
+        table = Table.create(headerRow);
+        for (int i = 0; i < ROWS; i++) {
+            final var row = TableRow.create();
+            for (int j = 0; j < COLUMNS; j++) {
+                row.addPart(TableCell.create().setText("Cell " + i + "." + j));
+            }
+            table.addPart(row);
+        }
+    }
+
+    @Benchmark
+    public long writeTable() throws Throwable {
+        final var document =
+            Document.create()
+                .setLabel("benchmark")
+                .addPart(DocumentCase.create().setName("Rows").addPart(table));
+        try (
+            final var documentHolder =
+                XlsxFormatter.create()
+                    .setStreaming(isStreaming)
+                    .handle(document)
+        ) {
+            return documentHolder.getResource().contentLength();
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(
+            new OptionsBuilder()
+                .include(XlsxFormatterBenchmark.class.getSimpleName())
+                .build()
+        ).run();
+    }
+}
@@ -0,0 +1,142 @@
+package com.reporter.db;
+
+import com.reporter.domain.Document;
+import com.reporter.domain.TableRow;
+import com.reporter.domain.db.KeysetQueryTable;
+import com.reporter.formatter.csv.CsvFormatter;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.TransientDataAccessResourceException;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+public class KeysetQueryTableTests extends BaseQueryDocument {
+    @Autowired
+    public NamedParameterJdbcTemplate jdbcTemplateH2;
+
+    @Test
+    public void testKeysetPagesReadAllRowsInOrder() throws Throwable {
+        final var queryTable = KeysetQueryTable.create()
+            .setKeyColumn("x")
+            .setPageSize(1000)
+            .setNamedParameterJdbcTemplate(jdbcTemplateH2)
+            .setTableHeaderRowFromData(true)
+            .setQuery("select x, 'value' || x as v from system_range(1, 2500);");
+
+        new CsvFormatter().handle(Document.create().setLabel("keyset1").addParts(queryTable)).close();
+
+        long expected = 1;
+        for (final var row : queryTable.getParts()) {
+            Assertions.assertEquals(expected, ((Number) row.getParts().iterator().next().getValue()).longValue());
+            Assertions.assertEquals(expected - 1, row.getRowIndex());
+            expected++;
+        }
+        Assertions.assertEquals(2501, expected);
+    }
+
+    @Test
+    public void testKeysetPageIsRetriedFromLastKey() throws Throwable {
+        final var executions = new AtomicInteger();
+        final var queryTable = new KeysetQueryTable() {
+            @Override
+            protected Stream<TableRow> executeQuery(String sql, SqlParameterSource params, RowMapper<TableRow> rowMapper) {
+                if (executions.incrementAndGet() == 2) {
+                    throw new TransientDataAccessResourceException("connection reset");
+                }
+                return super.executeQuery(sql, params, rowMapper);
+            }
+        }
+            .setKeyColumn("x")
+            .setPageSize(100)
+            .setStreaming(true)
+            .setNamedParameterJdbcTemplate(jdbcTemplateH2)
+            .setTableHeaderRowFromData(true)
+            .setQuery("select x from system_range(1, 250)");
+
+        final var documentHolder = new CsvFormatter().handle(Document.create().setLabel("keyset2").addParts(queryTable));
+        final var lines = Files.readAllLines(documentHolder.getResource().getFile().toPath());
+        documentHolder.close();
+
+        Assertions.assertEquals(251, lines.size());
+        Assertions.assertEquals("250", lines.get(250));
+        Assertions.assertEquals(4, executions.get());
+    }
+
+    @Test
+    public void testKeysetFailsAfterMaxRetries() throws Exception {
+        final var queryTable = new KeysetQueryTable() {
+            @Override
+            protected Stream<TableRow> executeQuery(String sql, SqlParameterSource params, RowMapper<TableRow> rowMapper) {
+                throw new TransientDataAccessResourceException("connection reset");
+            }
+        }
+            .setMaxRetries(2)
+            .setKeyColumn("x")
+            .setNamedParameterJdbcTemplate(jdbcTemplateH2)
+            .setQuery("select x from system_range(1, 10)");
+
+        Assertions.assertThrows(
+            TransientDataAccessResourceException.class,
+            () -> new CsvFormatter().handle(Document.create().setLabel("keyset3").addParts(queryTable)).close()
+        );
+        Files.deleteIfExists(Path.of("keyset3.csv"));
+    }
+
+    @Test
+    public void testKeysetQualifiedKeyAndPageLimits() throws Throwable {
+        for (final var pageLimit : KeysetQueryTable.PageLimit.values()) {
+            final var queryTable = KeysetQueryTable.create(jdbcTemplateH2)
+                .setKeyColumn("t.x")
+                .setPageLimit(pageLimit)
+                .setPageSize(100)
+                .setTableHeaderRowFromData(true)
+                .setQuery("select t.x from system_range(1, 250) t");
+
+            new CsvFormatter().handle(Document.create().setLabel("keyset4").addParts(queryTable)).close();
+
+            long rows = 0;
+            for (final var ignored : queryTable.getParts()) {
+                rows++;
+            }
+            Assertions.assertEquals(250, rows);
+        }
+
+        final var detected = KeysetQueryTable.create(jdbcTemplateH2).setKeyColumn("x");
+        detected.setTableHeaderRowFromData(true).setQuery("select x from system_range(1, 10)");
+        new CsvFormatter().handle(Document.create().setLabel("keyset5").addParts(detected)).close();
+        Assertions.assertEquals(KeysetQueryTable.PageLimit.LIMIT, detected.getPageLimit());
+        Assertions.assertEquals(KeysetQueryTable.PageLimit.OFFSET_FETCH, KeysetQueryTable.PageLimit.of("Microsoft SQL Server"));
+        Assertions.assertEquals(KeysetQueryTable.PageLimit.FETCH_FIRST, KeysetQueryTable.PageLimit.of("Oracle"));
+    }
+
+    @Test
+    public void testKeysetRejectsInvalidAndNullKeys() throws Exception {
+        final var injected = KeysetQueryTable.create(jdbcTemplateH2)
+            .setKeyColumn("x; drop table users")
+            .setQuery("select x from system_range(1, 10)");
+        Assertions.assertThrows(
+            IllegalArgumentException.class,
+            () -> new CsvFormatter().handle(Document.create().setLabel("keyset6").addParts(injected)).close()
+        );
+        Files.deleteIfExists(Path.of("keyset6.csv"));
+
+        final var nullKey = KeysetQueryTable.create(jdbcTemplateH2)
+            .setKeyColumn("k")
+            .setPageSize(5)
+            .setTableHeaderRowFromData(true)
+            .setQuery("select case when x > 3 then null else x end as k from system_range(1, 10)");
+        final var e = Assertions.assertThrows(
+            IllegalStateException.class,
+            () -> new CsvFormatter().handle(Document.create().setLabel("keyset7").addParts(nullKey)).close()
+        );
+        Assertions.assertTrue(e.getMessage().contains("is null"), e.getMessage());
+        Files.deleteIfExists(Path.of("keyset7.csv"));
+    }
+}
@@ -18,15 +18,27 @@ import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
 import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
 import org.springframework.test.context.jdbc.Sql;
 
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
 import java.nio.charset.Charset;
 import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.ResultSet;
 import java.time.Clock;
 import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
 
 @Sql("classpath:db/h2/schema_query_table_test.sql")
 public class QueryTableTests extends BaseQueryDocument {
@@ -44,6 +56,36 @@ public class QueryTableTests extends BaseQueryDocument {
         protected String password = "my_password";
     }
 
+    public static class ClientAmount {
+        private String clientName;
+        private Long amount;
+        private int diff;
+
+        public String getClientName() {
+            return clientName;
+        }
+
+        public void setClientName(String clientName) {
+            this.clientName = clientName;
+        }
+
+        public Long getAmount() {
+            return amount;
+        }
+
+        public void setAmount(Long amount) {
+            this.amount = amount;
+        }
+
+        public int getDiff() {
+            return diff;
+        }
+
+        public void setDiff(int diff) {
+            this.diff = diff;
+        }
+    }
+
     @BeforeEach
     public void initDoc() throws Exception {
         super.initDoc();
@@ -182,4 +224,333 @@ public class QueryTableTests extends BaseQueryDocument {
         Assertions.assertTrue(expected.stream().allMatch(text::contains));
     }
 
+    @Test
+    public void testStreamingQueryTableToFile() throws Throwable {
+
+        final var queryTable = QueryTable.create()
+            .setNamedParameterJdbcTemplate(jdbcTemplateH2)
+            .setTableHeaderRowFromData(true)
+            .setStreaming(true)
+            .setQuery(
+                "    select \"login\",\n" +
+                    "    \"client_name\",\n" +
+                    "    \"rel_diff_percent\" from \"traffic_mon\";"
+            );
+
+        final var doc = Document
+            .create()
+            .setLabel("doc3")
+            .addParts(queryTable);
+        final var expected = Set.of("client1", "client5", "79960174254");
+
+        final var csvFormatter = new CsvFormatter();
+        final var documentHolder = csvFormatter.handle(doc);
+        final var text = Files.readString(documentHolder.getResource().getFile().toPath());
+        documentHolder.close();
+
+        Assertions.assertTrue(expected.stream().allMatch(text::contains));
+        Assertions.assertFalse(queryTable.getParts().iterator().hasNext());
+        Assertions.assertEquals(1, queryTable.getSavedRoundTrips());
+
+        final var emptyTable = QueryTable.create()
+            .setNamedParameterJdbcTemplate(jdbcTemplateH2)
+            .setTableHeaderRowFromData(true)
+            .setStreaming(true)
+            .setQuery("select * from system_range(1, 0)");
+        XlsxFormatter.create().handle(Document.create().setLabel("doc3_empty").addParts(emptyTable)).close();
+        Assertions.assertEquals(0, emptyTable.getSavedRoundTrips());
+    }
+
+    @Test
+    public void testQueryTableKeepsNativeValues() throws Throwable {
+
+        final var queryTable = QueryTable.create()
+            .setNamedParameterJdbcTemplate(jdbcTemplateH2)
+            .setTableHeaderRowFromData(true)
+            .setQuery(
+                "    select \"client_name\",\n" +
+                    "    \"date1_amount\" from \"traffic_mon\";"
+            );
+
+        final var doc = Document
+            .create()
+            .setLabel("doc4")
+            .addParts(queryTable);
+
+        new CsvFormatter().handle(doc).close();
+
+        final var row = queryTable.getParts().iterator().next();
+        final var cells = row.getParts().iterator();
+        final var nameCell = cells.next();
+        final var amountCell = cells.next();
+
+        Assertions.assertTrue(nameCell.getValue() instanceof String);
+        Assertions.assertTrue(amountCell.getValue() instanceof Integer);
+        Assertions.assertEquals(amountCell.getValue().toString(), amountCell.getText());
+    }
+
+    @Test
+    public void testQueryTableKeepsDriverText() throws Throwable {
+        final var query = "select cast(10000000 as double) as \"d\"," +
+            " timestamp '2024-01-01 00:00:00' as \"t\"," +
+            " cast(X'0a1b2c' as binary(3)) as \"b\"";
+
+        final var expected = jdbcTemplateH2.getJdbcTemplate().queryForObject(query, (rs, rowNum) -> List.of(
+            rs.getObject(1, String.class),
+            rs.getObject(2, String.class),
+            rs.getObject(3, String.class)
+        ));
+
+        for (final var isStreaming : List.of(false, true)) {
+            final var queryTable = QueryTable.create()
+                .setNamedParameterJdbcTemplate(jdbcTemplateH2)
+                .setTableHeaderRowFromData(true)
+                .setStreaming(isStreaming)
+                .setQuery(query);
+            final var documentHolder = new CsvFormatter()
+                .handle(Document.create().setLabel("doc4_" + isStreaming).addParts(queryTable));
+            final var text = Files.readString(documentHolder.getResource().getFile().toPath());
+            documentHolder.close();
+
+            Assertions.assertTrue(text.contains(String.join(";", expected)), text);
+            if (!isStreaming) {
+                final var texts = new ArrayList<String>();
+                for (final var cell : queryTable.getParts().iterator().next().getParts()) {
+                    texts.add(cell.getText());
+                }
+                Assertions.assertEquals(expected, texts);
+            }
+        }
+        Assertions.assertFalse(expected.get(2).startsWith("[B@"));
+    }
+
+    @Test
+    public void testWideQueryTableReadsEachColumnOnce() throws Throwable {
+        final var columnCount = 40;
+        final var rowCount = 50;
+        final var columns = new ArrayList<String>();
+        for (int i = 0; i < columnCount; i++) {
+            columns.add("x * " + i + " as \"c" + i + "\"");
+        }
+        final var reads = new int[columnCount + 1];
+        final var queryTable = new QueryTable() {
+            @Override
+            protected Stream<TableRow> executeQuery(String sql, SqlParameterSource params,
+                                                    RowMapper<TableRow> rowMapper) {
+                return super.executeQuery(sql, params, (rs, rowNum) -> rowMapper.mapRow(countReads(rs, reads), rowNum));
+            }
+        }
+            .setNamedParameterJdbcTemplate(jdbcTemplateH2)
+            .setTableHeaderRowFromData(true)
+            .setQuery("select " + String.join(", ", columns) + " from system_range(1, " + rowCount + ")");
+
+        new CsvFormatter().handle(Document.create().setLabel("doc10").addParts(queryTable)).close();
+
+        for (int i = 1; i <= columnCount; i++) {
+            Assertions.assertEquals(rowCount, reads[i], "column " + i);
+        }
+        final var rows = new ArrayList<TableRow>();
+        queryTable.getParts().forEach(rows::add);
+        final var lastCells = new ArrayList<TableCell>();
+        rows.get(rowCount - 1).getParts().forEach(lastCells::add);
+        Assertions.assertEquals(String.valueOf(rowCount * (columnCount - 1)), lastCells.get(columnCount - 1).getText());
+    }
+
+    /**
+     * Wraps the result set counting reads of column values by column index
+     */
+    private static ResultSet countReads(ResultSet rs, int[] reads) {
+        return (ResultSet) Proxy.newProxyInstance(
+            ResultSet.class.getClassLoader(),
+            new Class<?>[]{ResultSet.class},
+            (proxy, method, args) -> {
+                if (method.getName().startsWith("get") && args != null && args[0] instanceof Integer) {
+                    reads[(Integer) args[0]]++;
+                }
+                try {
+                    return method.invoke(rs, args);
+                } catch (InvocationTargetException e) {
+                    throw e.getCause();
+                }
+            }
+        );
+    }
+
+    @Test
+    public void testConcurrentQueryTablesOnSharedTemplate() throws Throwable {
+        final var expectedRows = jdbcTemplateH2.getJdbcTemplate()
+            .queryForObject("select count(*) from \"traffic_mon\"", Integer.class);
+        final var maxRows = jdbcTemplateH2.getJdbcTemplate().getMaxRows();
+        final var fetchSize = jdbcTemplateH2.getJdbcTemplate().getFetchSize();
+        final var executor = Executors.newFixedThreadPool(8);
+        try {
+            final var futures = new ArrayList<Future<Integer>>();
+            for (int i = 0; i < 64; i++) {
+                final var isHeaderFromData = i % 2 == 0;
+                final var fetch = i + 1;
+                final var label = "doc5_" + i;
+                futures.add(executor.submit(() -> {
+                    final var queryTable = QueryTable.create()
+                        .setNamedParameterJdbcTemplate(jdbcTemplateH2)
+                        .setTableHeaderRowFromData(isHeaderFromData)
+                        .setFetchSize(fetch)
+                        .setQuery("select \"client_name\", \"login\" from \"traffic_mon\"");
+                    if (!isHeaderFromData) {
+                        queryTable.setTableHeaderRow(
+                            TableHeaderRow.create(
+                                TableHeaderCell.create().setText("Client").setAliasName("client_name"),
+                                TableHeaderCell.create().setText("Login").setAliasName("login")
+                            )
+                        );
+                    }
+                    try {
+                        new CsvFormatter().handle(Document.create().setLabel(label).addParts(queryTable)).close();
+                    } catch (Throwable t) {
+                        throw new IllegalStateException(t);
+                    }
+                    int rows = 0;
+                    for (final var ignored : queryTable.getParts()) {
+                        rows++;
+                    }
+                    return rows;
+                }));
+            }
+            for (final var future : futures) {
+                Assertions.assertEquals(expectedRows, future.get());
+            }
+        } finally {
+            executor.shutdown();
+        }
+        Assertions.assertEquals(maxRows, jdbcTemplateH2.getJdbcTemplate().getMaxRows());
+        Assertions.assertEquals(fetchSize, jdbcTemplateH2.getJdbcTemplate().getFetchSize());
+    }
+
+    @Test
+    public void testAdaptiveFetchSize() throws Throwable {
+
+        final var queryTable = QueryTable.create()
+            .setNamedParameterJdbcTemplate(jdbcTemplateH2)
+            .setTableHeaderRowFromData(true)
+            .setRsTypeScroll(ResultSet.TYPE_SCROLL_INSENSITIVE)
+            .setAdaptiveFetchSize(true)
+            .setFetchSize(10)
+            .setFetchSizeMemoryBudget(64 * 1024)
+            .setMaxFetchSize(500)
+            .setQuery("select x from system_range(1, 2000)");
+
+        final var doc = Document
+            .create()
+            .setLabel("doc6")
+            .addParts(queryTable);
+
+        new CsvFormatter().handle(doc).close();
+
+        int rows = 0;
+        for (final var ignored : queryTable.getParts()) {
+            rows++;
+        }
+        Assertions.assertEquals(2000, rows);
+        Assertions.assertEquals(500, queryTable.getAdaptedFetchSize());
+    }
+
+    @Test
+    public void testPrefetchedQueryTablesKeepDocumentOrder() throws Throwable {
+        final var doc = Document
+            .create()
+            .setLabel("doc7");
+        final var queryTables = new ArrayList<QueryTable>();
+        for (int i = 0; i < 6; i++) {
+            final var queryTable = QueryTable.create()
+                .setNamedParameterJdbcTemplate(jdbcTemplateH2)
+                .setTableHeaderRowFromData(true)
+                .setStreaming(i == 5)
+                .setQuery("select 'marker" + i + "' as \"m\", x from system_range(1, " + (100 - i * 10) + ")");
+            queryTables.add(queryTable);
+            doc.addParts(queryTable);
+        }
+
+        final var csvFormatter = new CsvFormatter();
+        final var documentHolder = csvFormatter.handle(doc, 3);
+        final var text = Files.readString(documentHolder.getResource().getFile().toPath());
+        documentHolder.close();
+
+        for (int i = 0; i < 5; i++) {
+            Assertions.assertTrue(text.indexOf("marker" + i) < text.indexOf("marker" + (i + 1)));
+            int rows = 0;
+            for (final var ignored : queryTables.get(i).getParts()) {
+                rows++;
+            }
+            Assertions.assertEquals(100 - i * 10, rows);
+        }
+        Assertions.assertTrue(text.contains("marker5"));
+    }
+
+    @Test
+    public void testPrefetchIsDroppedAfterFailedRender() throws Throwable {
+        final var queryTable = QueryTable.create()
+            .setNamedParameterJdbcTemplate(jdbcTemplateH2)
+            .setTableHeaderRowFromData(true)
+            .setMapSqlParameterSource(new MapSqlParameterSource("v", 1))
+            .setQuery("select cast(:v as int) as \"v\"");
+        final var doc = Document.create()
+            .setLabel("doc9")
+            .addParts(Title.create("Title"), queryTable);
+
+        final var failingFormatter = new CsvFormatter() {
+            @Override
+            public void visitTitle(Title titleObj) {
+                throw new IllegalArgumentException("Title rejected");
+            }
+        };
+        Assertions.assertThrows(IllegalArgumentException.class, () -> failingFormatter.handle(doc, 2));
+        Files.deleteIfExists(Path.of("doc9.csv"));
+
+        queryTable.setMapSqlParameterSource(new MapSqlParameterSource("v", 2));
+        new CsvFormatter().handle(doc).close();
+
+        final var rows = new ArrayList<TableRow>();
+        queryTable.getParts().forEach(rows::add);
+        Assertions.assertEquals(1, rows.size());
+        Assertions.assertEquals("2", rows.get(0).getParts().iterator().next().getText());
+    }
+
+    @Test
+    public void testReportRowMapper() {
+        final var rows = jdbcTemplateH2.getJdbcTemplate().query(
+            "select \"client_name\" as \"clientName\", \"date1_amount\" as \"amount\", 7 as \"diff\"," +
+                " 'unknown' as \"unknownColumn\" from \"traffic_mon\" order by \"id\"",
+            new ReportRowMapper<>(ClientAmount.class)
+        );
+        final var expected = jdbcTemplateH2.getJdbcTemplate().queryForList(
+            "select \"date1_amount\" from \"traffic_mon\" order by \"id\"", Integer.class
+        );
+
+        Assertions.assertEquals(expected.size(), rows.size());
+        for (int i = 0; i < rows.size(); i++) {
+            Assertions.assertNotNull(rows.get(i).getClientName());
+            Assertions.assertEquals(
+                expected.get(i) != null ? expected.get(i).longValue() : null,
+                rows.get(i).getAmount()
+            );
+            Assertions.assertEquals(7, rows.get(i).getDiff());
+        }
+    }
+
+    @Test
+    public void testFlyweightStreamingMatchesRegularOutput() throws Throwable {
+        final var texts = new ArrayList<String>();
+        for (final var isFlyweight : List.of(false, true)) {
+            final var queryTable = QueryTable.create()
+                .setNamedParameterJdbcTemplate(jdbcTemplateH2)
+                .setTableHeaderRowFromData(true)
+                .setStreaming(true)
+                .setFlyweight(isFlyweight)
+                .setQuery("select \"login\", \"client_name\", \"date1_amount\" from \"traffic_mon\" order by \"id\"");
+            final var documentHolder = new CsvFormatter()
+                .handle(Document.create().setLabel("doc8_" + isFlyweight).addParts(queryTable));
+            texts.add(Files.readString(documentHolder.getResource().getFile().toPath()));
+            documentHolder.close();
+        }
+        Assertions.assertEquals(texts.get(0), texts.get(1));
+    }
 }
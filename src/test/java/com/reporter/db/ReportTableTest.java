@@ -532,6 +532,98 @@ public class ReportTableTest extends BaseQueryDocument {
         Assertions.assertEquals("legal_person_name10", check);
     }
 
-}
+    @Test
+    public void testLazyReportTableFromPagesAndStream() throws Throwable {
+        final var partners = testPartnerRepository.findAllPartners();
+        final var expected = partners.stream().map(TestPartner::getName).collect(Collectors.toList());
+
+        final var pagedTable = ReportTable.create()
+            .setTableHeaderRowFromData(true)
+            .addDataPages(page ->
+                partners.subList(Math.min(page * 3, partners.size()), Math.min(page * 3 + 3, partners.size()))
+            );
+        final var streamedTable = ReportTable.create()
+            .setTableHeaderRowFromData(true)
+            .addDataStream(partners.stream());
+
+        for (final var table : List.of(pagedTable, streamedTable)) {
+            final var documentHolder = new CsvFormatter().handle(Document.create().setLabel("lazy").addParts(table));
+            final var lines = Files.readAllLines(documentHolder.getResource().getFile().toPath());
+            documentHolder.close();
+
+            Assertions.assertEquals(partners.size() + 1, lines.size());
+            Assertions.assertTrue(expected.stream().allMatch(name -> lines.stream().anyMatch(l -> l.contains(name))));
+            Assertions.assertFalse(table.getParts().iterator().hasNext());
+        }
+    }
+
+    @Test
+    public void testLazyReportTableKeepsCallerRows() throws Throwable {
+        final var callerRow = TableRow.create(TableCell.create("caller"));
+        final var table = ReportTable.create(TableHeaderRow.create(TableHeaderCell.create("Name")))
+            .addDataStream(Stream.empty());
+        table.addPart(callerRow);
+
+        final var documentHolder = new CsvFormatter().handle(Document.create().setLabel("lazyEmpty").addParts(table));
+        final var lines = Files.readAllLines(documentHolder.getResource().getFile().toPath());
+        documentHolder.close();
+
+        Assertions.assertEquals(List.of("Name", "caller"), lines);
+        Assertions.assertSame(callerRow, table.getParts().iterator().next());
+    }
+
+    private static class MixedBase {
+        protected int id;
+        protected String name;
+
+        MixedBase(int id, String name) {
+            this.id = id;
+            this.name = name;
+        }
+    }
+
+    private static class MixedDerived extends MixedBase {
+        protected String extra = "extra";
+
+        MixedDerived(int id, String name) {
+            super(id, name);
+        }
+    }
 
+    private static class MixedOther {
+        protected String name;
+        protected long id;
 
+        MixedOther(long id, String name) {
+            this.id = id;
+            this.name = name;
+        }
+    }
+
+    @Test
+    public void testReportTableWithMixedItemClasses() throws Throwable {
+        final List<Object> items = List.of(
+            new MixedBase(1, "base"),
+            new MixedDerived(2, "derived"),
+            new MixedOther(3, "other"),
+            new MixedBase(4, "base again")
+        );
+        final var listTable = ReportTable.create()
+            .setTableHeaderRowFromData(true)
+            .addDataList(items);
+        final var streamedTable = ReportTable.create()
+            .setTableHeaderRowFromData(true)
+            .addDataStream(items.stream());
+
+        for (final var table : List.of(listTable, streamedTable)) {
+            final var documentHolder = new CsvFormatter().handle(Document.create().setLabel("mixed").addParts(table));
+            final var lines = Files.readAllLines(documentHolder.getResource().getFile().toPath());
+            documentHolder.close();
+
+            Assertions.assertEquals(
+                List.of("id;name", "1;base", "2;derived", "3;other", "4;base again"),
+                lines
+            );
+        }
+    }
+}
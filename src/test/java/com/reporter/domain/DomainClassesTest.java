@@ -1,15 +1,31 @@
 package com.reporter.domain;
 
+import com.reporter.domain.styles.BorderStyle;
+import com.reporter.domain.styles.LayoutStyle;
+import com.reporter.domain.styles.LayoutTextStyle;
+import com.reporter.domain.styles.StyleCondition;
+import com.reporter.domain.styles.StyleUtils;
+import com.reporter.domain.styles.TextStyle;
+import com.reporter.domain.styles.constants.BorderWeight;
+import com.reporter.domain.styles.constants.Color;
+import com.reporter.domain.styles.constants.HorAlignment;
 import com.reporter.formatter.DocumentHolder;
+import com.reporter.formatter.csv.CsvFormatter;
 import com.reporter.formatter.excel.XlsFormatter;
+import com.reporter.formatter.html.HtmlFormatter;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
 import org.springframework.core.io.FileUrlResource;
 
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
+import java.text.DecimalFormat;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Spliterator;
+import java.util.concurrent.ForkJoinPool;
 import java.util.function.Consumer;
 
 import static org.mockito.ArgumentMatchers.any;
@@ -107,4 +123,228 @@ public class DomainClassesTest {
         documentHolder.close();
         Assertions.assertTrue(Files.notExists(documentHolder.getResource().getFile().toPath()));
     }
+
+    /**
+     * Test on {@link ColumnarTable} storing values column-wise
+     * and visiting them through the flyweight cursor.
+     *
+     * @throws Throwable Exception/IOException
+     */
+    @Test
+    public void testColumnarTable() throws Throwable {
+        final var table = ColumnarTable
+            .create(
+                TableHeaderRow.create(
+                    TableHeaderCell.create("name"),
+                    TableHeaderCell.create("count"),
+                    TableHeaderCell.create("amount")
+                ),
+                ColumnarTable.ColumnType.STRING,
+                ColumnarTable.ColumnType.LONG,
+                ColumnarTable.ColumnType.DOUBLE
+            )
+            .addRow("first", 1, 1.5)
+            .addRow("second", null, 2.25)
+            .addRow("first", 3L, null)
+            .addPart(TableRow.create(TableCell.create("third"), TableCell.create("4"), TableCell.create("0.5")));
+
+        Assertions.assertEquals(4, table.getRowCount());
+        Assertions.assertEquals(4L, table.getValue(3, 1));
+        Assertions.assertNull(table.getValue(1, 1));
+
+        final var documentHolder = new CsvFormatter().handle(Document.create().setLabel("columnar").addParts(table));
+        final var lines = Files.readAllLines(documentHolder.getResource().getFile().toPath());
+        documentHolder.close();
+
+        Assertions.assertEquals(
+            List.of("name;count;amount", "first;1;1.5", "second;;2.25", "first;3;", "third;4;0.5"),
+            lines
+        );
+        int rowIndex = 0;
+        for (final var row : table.getParts()) {
+            Assertions.assertEquals(rowIndex++, row.getRowIndex());
+        }
+        Assertions.assertEquals(4, rowIndex);
+    }
+
+    /**
+     * Test on values of {@link ColumnarTable} which it cannot keep
+     */
+    @Test
+    public void testColumnarTableRejectedValues() throws Throwable {
+        final var table = ColumnarTable
+            .create(
+                TableHeaderRow.create(TableHeaderCell.create("count"), TableHeaderCell.create("amount")),
+                ColumnarTable.ColumnType.LONG,
+                ColumnarTable.ColumnType.DOUBLE
+            )
+            .addRow(1, 10_000_000d);
+
+        final var e = Assertions.assertThrows(IllegalArgumentException.class, () -> table.addRow(2, "many"));
+        Assertions.assertTrue(e.getMessage().contains("'amount'"), e.getMessage());
+        Assertions.assertThrows(
+            IllegalArgumentException.class,
+            () -> table.addPart(
+                TableRow.create(TableCell.create("3"), TableCell.create("4")).setStyle(TextStyle.create().setBold(true))
+            )
+        );
+        final var customCell = TableCell.create("4");
+        final var customRow = TableRow.create(TableCell.create("3"), customCell);
+        customCell.setCustomIndex(5);
+        Assertions.assertThrows(IllegalArgumentException.class, () -> table.addPart(customRow));
+        table.addRow(null, 0.5);
+
+        final var documentHolder = new CsvFormatter().handle(Document.create().setLabel("columnar2").addParts(table));
+        final var lines = Files.readAllLines(documentHolder.getResource().getFile().toPath());
+        documentHolder.close();
+
+        Assertions.assertEquals(List.of("count;amount", "1;10000000", ";0.5"), lines);
+    }
+
+    /**
+     * Fields of the joined style which differ from a new style instance replace the fields of the target style
+     */
+    @Test
+    public void testJoinStyles() throws Exception {
+        final var textTo = TextStyle.create().setItalic(true).setFontSize((short) 14);
+        StyleUtils.joinWith(TextStyle.create().setBold(true).setColor(Color.BLUE), textTo);
+        Assertions.assertEquals(
+            TextStyle.create().setItalic(true).setFontSize((short) 14).setBold(true).setColor(Color.BLUE),
+            textTo
+        );
+
+        final var border = BorderStyle.create(Color.BLACK, BorderWeight.THIN);
+        final var layoutTo = LayoutStyle.create().setWidth(10).setHorAlignment(HorAlignment.RIGHT);
+        StyleUtils.joinWith(LayoutStyle.create().setBorderTop(border).setHorAlignment(HorAlignment.GENERAL), layoutTo);
+        Assertions.assertEquals(
+            LayoutStyle.create().setWidth(10).setHorAlignment(HorAlignment.RIGHT).setBorderTop(border),
+            layoutTo
+        );
+
+        final var subclassTo = new TextStyle() {
+        };
+        subclassTo.setFontSize((short) 14);
+        StyleUtils.joinWith(TextStyle.create().setBold(true), subclassTo);
+        Assertions.assertFalse(subclassTo.isBold());
+    }
+
+    /**
+     * Equal styles are frozen to one canonical instance which can not be changed
+     */
+    @Test
+    public void testFrozenStyles() throws Exception {
+        final var style = LayoutTextStyle.create(
+            TextStyle.create().setBold(true),
+            LayoutStyle.create().setBorderTop(BorderStyle.create(Color.BLACK, BorderWeight.THIN))
+        );
+        final LayoutTextStyle frozen = style.freeze();
+        final LayoutTextStyle frozenAgain = style.clone().freeze();
+
+        Assertions.assertSame(frozen, frozenAgain);
+        Assertions.assertSame(frozen, frozen.freeze());
+        Assertions.assertEquals(style, frozen);
+        Assertions.assertEquals(style.hashCode(), frozen.hashCode());
+        Assertions.assertThrows(UnsupportedOperationException.class, () -> frozen.setTextStyle(TextStyle.create()));
+        Assertions.assertThrows(UnsupportedOperationException.class, () -> frozen.getTextStyle().setItalic(true));
+        Assertions.assertThrows(
+            UnsupportedOperationException.class,
+            () -> frozen.getLayoutStyle().getBorderTop().setColor(Color.WHITE)
+        );
+        Assertions.assertThrows(
+            UnsupportedOperationException.class,
+            () -> StyleUtils.joinWith(TextStyle.create().setItalic(true), frozen.getTextStyle())
+        );
+
+        style.getTextStyle().setItalic(true);
+        Assertions.assertNotEquals(style, frozen);
+        Assertions.assertNotSame(frozen, style.freeze());
+
+        final var copy = frozen.clone();
+        Assertions.assertFalse(copy.isFrozen());
+        copy.getTextStyle().setItalic(true);
+        Assertions.assertEquals(style, copy);
+    }
+
+    /**
+     * Changes of the decimal format given to a style do not reach its frozen copy
+     */
+    @Test
+    public void testFrozenStyleDecimalFormat() throws Exception {
+        final var decimalFormat = new DecimalFormat("#,##0.00");
+        final var style = TextStyle.create().setDecimalFormat(decimalFormat);
+        final TextStyle frozen = style.freeze();
+        final var hash = frozen.hashCode();
+        final var equalStyle = TextStyle.create().setDecimalFormat(new DecimalFormat("#,##0.00"));
+
+        decimalFormat.applyPattern("0.0");
+        frozen.getDecimalFormat().applyPattern("0.000");
+        frozen.clone().getDecimalFormat().applyPattern("0.0000");
+
+        Assertions.assertEquals("#,##0.00", frozen.getDecimalFormat().toPattern());
+        Assertions.assertEquals(equalStyle, frozen);
+        Assertions.assertEquals(equalStyle.hashCode(), frozen.hashCode());
+        Assertions.assertEquals(hash, frozen.hashCode());
+        Assertions.assertNotEquals(style, frozen);
+    }
+
+    /**
+     * A shared frozen style spread in parallel is rendered as the cloned styles
+     */
+    @Test
+    public void testSpreadSharedStyleToParts() throws Throwable {
+        final var style = LayoutTextStyle.create(
+            TextStyle.create().setBold(true),
+            LayoutStyle.create().setBorderTop(BorderStyle.create(Color.BLACK, BorderWeight.THIN))
+        );
+        style.setCondition(StyleCondition.create(TableCell.class));
+        final var clonedTable = createTable(3000);
+        final var sharedTable = createTable(3000);
+
+        clonedTable.spreadStyleToParts(style);
+        sharedTable.spreadSharedStyleToParts(style, -1, ForkJoinPool.commonPool());
+
+        final var firstCellStyle = sharedTable.getParts().iterator().next().getParts().iterator().next().getStyle();
+        Assertions.assertTrue(firstCellStyle.isFrozen());
+        for (final var row : sharedTable.getParts()) {
+            Assertions.assertNull(row.getStyle());
+            for (final var cell : row.getParts()) {
+                Assertions.assertSame(firstCellStyle, cell.getStyle());
+            }
+        }
+        Assertions.assertEquals(renderHtml(clonedTable), renderHtml(sharedTable));
+
+        // Compositions without parts in the field get the style through their own spreadStyleToParts
+        final var clonedColumnar = createColumnarTable();
+        final var sharedColumnar = createColumnarTable();
+        Document.create().addParts(clonedColumnar).spreadStyleToParts(style);
+        Document.create().addParts(sharedColumnar).spreadSharedStyleToParts(style, -1, ForkJoinPool.commonPool());
+
+        final var sharedColumnarHtml = renderHtml(sharedColumnar);
+        Assertions.assertEquals(renderHtml(clonedColumnar), sharedColumnarHtml);
+        Assertions.assertNotEquals(renderHtml(createColumnarTable()), sharedColumnarHtml);
+    }
+
+    private static ColumnarTable createColumnarTable() {
+        final var table = ColumnarTable.create(ColumnarTable.ColumnType.STRING, ColumnarTable.ColumnType.LONG);
+        for (int i = 0; i < 10; i++) {
+            table.addRow("a" + i, (long) i);
+        }
+        return table;
+    }
+
+    private static Table createTable(int rows) {
+        final var table = Table.create();
+        for (int i = 0; i < rows; i++) {
+            table.addPart(TableRow.create(TableCell.create("a" + i), TableCell.create("b" + i)));
+        }
+        return table;
+    }
+
+    private static String renderHtml(Table table) throws Throwable {
+        final var os = new ByteArrayOutputStream();
+        final var htmlFormatter = HtmlFormatter.create();
+        htmlFormatter.setOutputStream(os);
+        htmlFormatter.handle(Document.create().addParts(table)).close();
+        return os.toString(StandardCharsets.UTF_8);
+    }
 }
@@ -1,8 +1,11 @@
 package com.reporter.formatter.csv;
 
+import com.reporter.domain.*;
+import com.reporter.domain.styles.TextStyle;
 import com.reporter.domain.db.QueryTable;
 import com.reporter.formatter.BaseDocument;
 import com.reporter.formatter.DocumentHolder;
+import com.reporter.formatter.DocumentStreamWriter;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -16,7 +19,11 @@ import java.io.IOException;
 import java.io.OutputStreamWriter;
 import java.nio.charset.Charset;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.text.DecimalFormat;
+import java.util.ArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
 
 @SpringBootTest(classes = QueryTable.class)
 class CsvFormatterTest extends BaseDocument {
@@ -131,4 +138,192 @@ class CsvFormatterTest extends BaseDocument {
         final Exception e = Assertions.assertThrows(Exception.class, () -> csvFormatter.handle(null));
         Assertions.assertTrue("Document not set".contains(e.getMessage()));
     }
+
+    @Test
+    public void testStreamedDocument() throws Throwable {
+        final var csvFormatter = new CsvFormatter();
+        csvFormatter.setFileName("streamedFile");
+        final DocumentHolder documentHolder;
+        try (final var writer = csvFormatter.stream(Document.create().setLabel("streamed"), 8)) {
+            writer.add(Title.create("Streamed title"));
+            writer.beginTable(
+                TableHeaderRow.create(TableHeaderCell.create("Column 1"), TableHeaderCell.create("Column 2"))
+            );
+            for (int i = 0; i < 1000; i++) {
+                writer.addRow(TableRow.create(TableCell.create("a" + i), TableCell.create("b" + i)));
+            }
+            writer.end();
+            writer.add(Paragraph.create("After table"));
+            documentHolder = writer.finish();
+        }
+        final var lines = Files.readAllLines(documentHolder.getResource().getFile().toPath());
+        documentHolder.close();
+
+        Assertions.assertEquals(1003, lines.size());
+        Assertions.assertEquals("Streamed title", lines.get(0));
+        Assertions.assertEquals("Column 1;Column 2", lines.get(1));
+        Assertions.assertEquals("a999;b999", lines.get(1001));
+        Assertions.assertEquals("After table", lines.get(1002));
+    }
+
+    @Test
+    public void testStreamedDocumentOnExecutor() throws Throwable {
+        final var csvFormatter = new CsvFormatter();
+        csvFormatter.setFileName("streamedOnExecutor");
+        final var pool = Executors.newSingleThreadExecutor();
+        final var executed = new AtomicInteger();
+        final var table = Table.create(
+            TableHeaderRow.create(TableHeaderCell.create("Column 1"), TableHeaderCell.create("Column 2"))
+        );
+        final DocumentHolder documentHolder;
+        try (final var writer = csvFormatter.stream(
+            Document.create().setLabel("streamedOnExecutor"),
+            8,
+            task -> {
+                executed.incrementAndGet();
+                pool.execute(task);
+            }
+        )) {
+            writer.begin(table);
+            for (int i = 0; i < 100; i++) {
+                writer.addRow(TableRow.create(TableCell.create("a" + i), TableCell.create("b" + i)));
+            }
+            writer.addRow(TableRow.create(TableCell.create("c"), TableCell.create("d"), TableCell.create("e")));
+            writer.end();
+            documentHolder = writer.finish();
+        } finally {
+            pool.shutdown();
+        }
+        final var lines = Files.readAllLines(documentHolder.getResource().getFile().toPath());
+        documentHolder.close();
+
+        Assertions.assertEquals(1, executed.get());
+        Assertions.assertEquals(102, lines.size());
+        Assertions.assertEquals(101, table.getRowCount());
+        Assertions.assertEquals(3, table.getColCount());
+    }
+
+    @Test
+    public void testStreamedColumnarTable() throws Throwable {
+        final var csvFormatter = new CsvFormatter();
+        csvFormatter.setFileName("streamedColumnar");
+        final var table = ColumnarTable.create(
+            TableHeaderRow.create(TableHeaderCell.create("Name"), TableHeaderCell.create("Count")),
+            ColumnarTable.ColumnType.STRING,
+            ColumnarTable.ColumnType.LONG
+        );
+        final DocumentHolder documentHolder;
+        try (final var writer = csvFormatter.stream(Document.create().setLabel("streamedColumnar"), 8)) {
+            writer.begin(table);
+            for (int i = 0; i < 100; i++) {
+                writer.addRow(TableRow.create(TableCell.create("a" + i), TableCell.create(String.valueOf(i))));
+            }
+            writer.end();
+            documentHolder = writer.finish();
+        }
+        final var lines = Files.readAllLines(documentHolder.getResource().getFile().toPath());
+        documentHolder.close();
+
+        Assertions.assertEquals(101, lines.size());
+        Assertions.assertEquals("Name;Count", lines.get(0));
+        Assertions.assertEquals("a99;99", lines.get(100));
+        Assertions.assertEquals(100, table.getRowCount());
+        Assertions.assertEquals(99L, table.getValue(99, 1));
+    }
+
+    @Test
+    public void testStreamedDocumentFailure() throws Throwable {
+        final var failingFormatter = new CsvFormatter() {
+            @Override
+            public void visitTableRow(TableRow tableRowObj) {
+                throw new IllegalArgumentException("Row rejected");
+            }
+        };
+        failingFormatter.setFileName("streamedFailure");
+        final var writer = failingFormatter.stream(Document.create(), 2);
+        final var e = Assertions.assertThrows(IllegalStateException.class, () -> {
+            writer.beginTable(TableHeaderRow.create(TableHeaderCell.create("Column 1")));
+            for (int i = 0; i < 100; i++) {
+                writer.addRow(TableRow.create(TableCell.create("a" + i)));
+            }
+        });
+        Assertions.assertEquals("Row rejected", e.getCause().getMessage());
+        Assertions.assertThrows(IllegalArgumentException.class, writer::finish);
+        Files.deleteIfExists(Path.of("streamedFailure.csv"));
+    }
+
+    @Test
+    public void testStreamedDocumentProducerFailure() {
+        final var csvFormatter = new CsvFormatter();
+        csvFormatter.setFileName("streamedAborted");
+        final var writers = new ArrayList<DocumentStreamWriter>();
+        final var e = Assertions.assertThrows(IllegalArgumentException.class, () -> {
+            try (final var writer = csvFormatter.stream(Document.create().setLabel("aborted"), 8)) {
+                writers.add(writer);
+                writer.beginTable(TableHeaderRow.create(TableHeaderCell.create("Column 1")));
+                for (int i = 0; i < 100; i++) {
+                    if (i == 50) {
+                        throw new IllegalArgumentException("Producer failed");
+                    }
+                    writer.addRow(TableRow.create(TableCell.create("a" + i)));
+                }
+                writer.end();
+                writer.finish();
+            }
+        });
+        Assertions.assertEquals("Producer failed", e.getMessage());
+        Assertions.assertThrows(IllegalStateException.class, writers.get(0)::finish);
+        Assertions.assertFalse(Files.exists(Path.of("streamedAborted.csv")));
+
+        final var abortedWriter = csvFormatter.setFileName("streamedAborted")
+            .stream(Document.create().setLabel("aborted"), 8);
+        abortedWriter.add(Title.create("Title"));
+        abortedWriter.abort(new IllegalArgumentException("Producer failed"));
+        final var abortException = Assertions.assertThrows(IllegalStateException.class, abortedWriter::finish);
+        Assertions.assertEquals("Producer failed", abortException.getCause().getMessage());
+        Assertions.assertFalse(Files.exists(Path.of("streamedAborted.csv")));
+    }
+
+    @Test
+    public void testParallelChunksMatchSerialOutput() throws Throwable {
+        final var style = TextStyle.create().setDecimalFormat(new DecimalFormat("#,##0.00"));
+        final var table = Table.create()
+            .setTableHeaderRow(TableHeaderRow.create(TableHeaderCell.create("Number"), TableHeaderCell.create("Text")));
+        for (int i = 0; i < 1000; i++) {
+            table.addParts(TableRow.create(
+                TableCell.create(String.valueOf(i * 1.5)).setStyle(style),
+                TableCell.create(i % 3 == 0 ? "quoted; \"" + i + "\"" : "текст " + i)
+            ));
+        }
+        final var largeDoc = Document.create().addParts(Title.create("Large table"), table, Footer.create("End"));
+
+        final var serial = new ByteArrayOutputStream();
+        final var serialFormatter = (CsvFormatter) new CsvFormatter().setEncoding("UTF-16");
+        serialFormatter.setOutputStream(serial);
+        serialFormatter.handle(largeDoc).close();
+
+        final var parallel = new ByteArrayOutputStream();
+        final var parallelFormatter = (CsvFormatter) new CsvFormatter().setEncoding("UTF-16")
+            .setParallelism(4).setChunkSize(7);
+        parallelFormatter.setOutputStream(parallel);
+        parallelFormatter.handle(largeDoc).close();
+
+        Assertions.assertArrayEquals(serial.toByteArray(), parallel.toByteArray());
+        Assertions.assertEquals(1003, serial.toString("UTF-16").split("\n", -1).length - 1);
+
+        final var overridden = new ByteArrayOutputStream();
+        final var overridingFormatter = new CsvFormatter() {
+            @Override
+            public void visitTableRow(TableRow tableRowObj) throws Throwable {
+                csvWriter.write("row " + tableRowObj.getRowIndex());
+            }
+        };
+        overridingFormatter.setEncoding("UTF-16").setParallelism(4).setChunkSize(7);
+        overridingFormatter.setOutputStream(overridden);
+        overridingFormatter.handle(largeDoc).close();
+
+        final var overriddenText = overridden.toString("UTF-16");
+        Assertions.assertTrue(overriddenText.contains("row 999"), overriddenText);
+        Assertions.assertFalse(overriddenText.contains("текст"));
+    }
 }
@@ -1,10 +1,20 @@
 package com.reporter.formatter.excel;
 
+import com.reporter.domain.Document;
+import com.reporter.domain.DocumentCase;
+import com.reporter.domain.Table;
+import com.reporter.domain.TableCell;
+import com.reporter.domain.TableHeaderCell;
+import com.reporter.domain.TableHeaderRow;
+import com.reporter.domain.TableRow;
+import com.reporter.domain.styles.TextStyle;
 import com.reporter.formatter.BaseDocument;
 import com.reporter.formatter.DocumentHolder;
 import com.reporter.formatter.excel.styles.ExcelStyleService;
 import org.apache.poi.common.usermodel.fonts.FontCharset;
 import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.CellType;
+import org.apache.poi.ss.usermodel.DateUtil;
 import org.apache.poi.ss.usermodel.Sheet;
 import org.apache.poi.ss.usermodel.Workbook;
 import org.apache.poi.ss.usermodel.WorkbookFactory;
@@ -13,8 +23,12 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
 import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
 import java.text.DecimalFormat;
+import java.text.DecimalFormatSymbols;
+import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.Locale;
 
 class ExcelFormatterTest extends BaseDocument {
 
@@ -87,6 +101,263 @@ class ExcelFormatterTest extends BaseDocument {
         Assertions.assertEquals("Cell 3.2", check);
     }
 
+    /**
+     * Test {@link XlsxFormatter#handle handle} call in streaming mode:
+     * the styled document is saved as by the default mode
+     * and rows of a table longer than the row access window are all written
+     *
+     * @throws Throwable Exception/IOException
+     */
+    @Test
+    public void testSaveStreamingXlsxFile() throws Throwable {
+        final var streamingFormatter = XlsxFormatter.create().setStreaming(true).setRowAccessWindowSize(10);
+        final var documentHolder = streamingFormatter.handle(doc);
+
+        final var checked = new ArrayList<String>();
+        try (final Workbook wb = WorkbookFactory.create(documentHolder.getResource().getFile())) {
+            wb.getSheetAt(0).rowIterator().forEachRemaining(r -> {
+                for (int i = 0; i < 2; i++) {
+                    final Cell cell = r.getCell(i);
+                    if (cell != null) {
+                        checked.add(cell.getStringCellValue());
+                    }
+                }
+            });
+        }
+        documentHolder.close();
+        Assertions.assertEquals(check, String.join(",", checked));
+
+        final var rowCount = 1000;
+        final var table =
+            Table.create(
+                TableHeaderRow.create().addParts(
+                    TableHeaderCell.create().setText("Column 1"),
+                    TableHeaderCell.create().setText("Column 2")
+                )
+            );
+        for (int i = 0; i < rowCount; i++) {
+            table.addPart(
+                TableRow.create().addParts(
+                    TableCell.create().setText("Cell " + i + ".1"),
+                    TableCell.create().setText("Cell " + i + ".2")
+                )
+            );
+        }
+        final var tableHolder =
+            XlsxFormatter.create()
+                .setStreaming(true)
+                .setRowAccessWindowSize(10)
+                .handle(
+                    Document.create().setLabel("streaming").addPart(
+                        DocumentCase.create().setName("Rows").addPart(table)
+                    )
+                );
+        try (final Workbook wb = WorkbookFactory.create(tableHolder.getResource().getFile())) {
+            final Sheet sheet = wb.getSheetAt(0);
+            Assertions.assertEquals(rowCount, sheet.getLastRowNum());
+            Assertions.assertEquals("Column 2", sheet.getRow(0).getCell(1).getStringCellValue());
+            Assertions.assertEquals("Cell 999.2", sheet.getRow(rowCount).getCell(1).getStringCellValue());
+        }
+        tableHolder.close();
+    }
+
+    /**
+     * Test auto width columns are measured once at the end of the table
+     * close to {@link Sheet#autoSizeColumn(int)} of the saved columns
+     *
+     * @throws Throwable Exception/IOException
+     */
+    @Test
+    public void testAutoWidthColumns() throws Throwable {
+        for (final var isStreaming : new boolean[]{false, true}) {
+            final var documentHolder = XlsxFormatter.create().setStreaming(isStreaming).handle(doc);
+            try (final Workbook wb = WorkbookFactory.create(documentHolder.getResource().getFile())) {
+                final Sheet sheet = wb.getSheetAt(0);
+                for (int column = 0; column < 2; column++) {
+                    final var width = sheet.getColumnWidth(column);
+                    sheet.autoSizeColumn(column);
+                    final var expected = sheet.getColumnWidth(column);
+                    Assertions.assertEquals(expected, width, expected * 0.1, "column " + column);
+                }
+            } finally {
+                documentHolder.close();
+            }
+        }
+    }
+
+    /**
+     * Test numbers, dates and booleans of table cells are saved as typed cells
+     * with the number format of the decimal format when typed cells are on
+     *
+     * @throws Throwable Exception/IOException
+     */
+    @Test
+    public void testSaveTypedCellsToXlsxFile() throws Throwable {
+        final var styleService =
+            ExcelStyleService.create(FontCharset.DEFAULT, new DecimalFormat("#,##0.00")).setTypedCells(true);
+        final var table =
+            Table.create(
+                TableHeaderRow.create().addParts(
+                    TableHeaderCell.create().setText("100"),
+                    TableHeaderCell.create().setText("Column 2")
+                )
+            ).addParts(
+                TableRow.create().addParts(
+                    TableCell.create().setValue(new BigDecimal("1234.5")),
+                    TableCell.create().setText("42")
+                ),
+                TableRow.create().addParts(
+                    TableCell.create().setValue(LocalDate.of(2022, 3, 1)),
+                    TableCell.create().setValue(true)
+                ),
+                TableRow.create().addParts(
+                    TableCell.create().setText("text"),
+                    TableCell.create().setValue("007")
+                ),
+                TableRow.create().addParts(
+                    TableCell.create().setText("00123"),
+                    TableCell.create().setText("12345678901234567")
+                ),
+                TableRow.create().addParts(
+                    TableCell.create().setValue(12345678901234567L),
+                    TableCell.create().setText("-0.5")
+                )
+            );
+        final var documentHolder =
+            XlsxFormatter.create()
+                .setStyleService(styleService)
+                .handle(Document.create().setLabel("typed").addPart(table));
+        try (final Workbook wb = WorkbookFactory.create(documentHolder.getResource().getFile())) {
+            final Sheet sheet = wb.getSheetAt(0);
+            Assertions.assertEquals(CellType.STRING, sheet.getRow(0).getCell(0).getCellType());
+
+            final var amount = sheet.getRow(1).getCell(0);
+            Assertions.assertEquals(CellType.NUMERIC, amount.getCellType());
+            Assertions.assertEquals(1234.5, amount.getNumericCellValue());
+            Assertions.assertEquals("#,##0.00", amount.getCellStyle().getDataFormatString());
+            Assertions.assertEquals(42, sheet.getRow(1).getCell(1).getNumericCellValue());
+
+            final var date = sheet.getRow(2).getCell(0);
+            Assertions.assertTrue(DateUtil.isCellDateFormatted(date));
+            Assertions.assertEquals(LocalDate.of(2022, 3, 1).atStartOfDay(), date.getLocalDateTimeCellValue());
+            Assertions.assertTrue(sheet.getRow(2).getCell(1).getBooleanCellValue());
+
+            Assertions.assertEquals("text", sheet.getRow(3).getCell(0).getStringCellValue());
+            Assertions.assertEquals("007", sheet.getRow(3).getCell(1).getStringCellValue());
+
+            // Leading zeros and digits beyond the precision of a double are kept as text
+            Assertions.assertEquals("00123", sheet.getRow(4).getCell(0).getStringCellValue());
+            Assertions.assertEquals("12345678901234567", sheet.getRow(4).getCell(1).getStringCellValue());
+            Assertions.assertEquals("12345678901234567", sheet.getRow(5).getCell(0).getStringCellValue());
+            Assertions.assertEquals(-0.5, sheet.getRow(5).getCell(1).getNumericCellValue());
+        } finally {
+            documentHolder.close();
+        }
+    }
+
+    /**
+     * Test decimal formats of typed cells translated to excel number formats:
+     * the currency sign and literal text are quoted, a format without excel counterpart is written as text
+     *
+     * @throws Throwable Exception/IOException
+     */
+    @Test
+    public void testSaveTypedCellsWithCurrencyAndLiteralFormats() throws Throwable {
+        final var symbols = DecimalFormatSymbols.getInstance(Locale.US);
+        final var table = Table.create().addParts(
+            TableRow.create().addParts(
+                TableCell.create().setValue(new BigDecimal("1234.5"))
+                    .setStyle(TextStyle.create().setDecimalFormat(new DecimalFormat("\u00A4#,##0.00", symbols))),
+                TableCell.create().setValue(12)
+                    .setStyle(TextStyle.create().setDecimalFormat(new DecimalFormat("0' pcs'", symbols))),
+                TableCell.create().setValue(new BigDecimal("0.5"))
+                    .setStyle(TextStyle.create().setDecimalFormat(new DecimalFormat("0\u2030", symbols)))
+            )
+        );
+        final var documentHolder =
+            XlsxFormatter.create()
+                .setStyleService(ExcelStyleService.create().setTypedCells(true))
+                .handle(Document.create().setLabel("typedFormats").addPart(table));
+        try (final Workbook wb = WorkbookFactory.create(documentHolder.getResource().getFile())) {
+            final var row = wb.getSheetAt(0).getRow(0);
+            Assertions.assertEquals(1234.5, row.getCell(0).getNumericCellValue());
+            Assertions.assertEquals("\"$\"#,##0.00", row.getCell(0).getCellStyle().getDataFormatString());
+            Assertions.assertEquals(12, row.getCell(1).getNumericCellValue());
+            Assertions.assertEquals("#0\" pcs\"", row.getCell(1).getCellStyle().getDataFormatString());
+            Assertions.assertEquals("500\u2030", row.getCell(2).getStringCellValue());
+        } finally {
+            documentHolder.close();
+        }
+    }
+
+    /**
+     * Test sheets of document cases written concurrently in the streaming mode
+     * equal sheets written one by one
+     *
+     * @throws Throwable Exception/IOException
+     */
+    @Test
+    public void testSaveParallelSheetsToXlsxFile() throws Throwable {
+        final var sheetCount = 8;
+        final var rowCount = 300;
+        final var document = Document.create().setLabel("parallel sheets");
+        for (int s = 0; s < sheetCount; s++) {
+            final var table =
+                Table.create(
+                    TableHeaderRow.create().addParts(
+                        TableHeaderCell.create().setText("Sheet " + s).setStyle(layoutTextStyle),
+                        TableHeaderCell.create().setText("Column 2").setStyle(layoutTextStyle)
+                    )
+                );
+            for (int i = 0; i < rowCount; i++) {
+                table.addPart(
+                    TableRow.create().addParts(
+                        TableCell.create().setText("Cell " + s + "." + i),
+                        TableCell.create().setText(String.valueOf(i))
+                    )
+                );
+            }
+            table.spreadStyleToParts(s % 2 == 0 ? textStyle1 : textStyleCell);
+            document.addPart(DocumentCase.create().setName("Sheet " + s).addPart(table));
+        }
+
+        final var sequential = XlsxFormatter.create().setStreaming(true).setFileName("sequential").handle(document);
+        final var parallelFormatter = XlsxFormatter.create().setStreaming(true).setSheetParallelism(4);
+        final var parallel = parallelFormatter.setFileName("parallel").handle(document);
+        try (
+            final Workbook expected = WorkbookFactory.create(sequential.getResource().getFile());
+            final Workbook actual = WorkbookFactory.create(parallel.getResource().getFile())
+        ) {
+            Assertions.assertEquals(sheetCount, actual.getNumberOfSheets());
+            for (int s = 0; s < sheetCount; s++) {
+                final var expectedSheet = expected.getSheetAt(s);
+                final var actualSheet = actual.getSheetAt(s);
+                Assertions.assertEquals(expectedSheet.getSheetName(), actualSheet.getSheetName());
+                Assertions.assertEquals(rowCount, actualSheet.getLastRowNum());
+                Assertions.assertEquals(expectedSheet.getColumnWidth(0), actualSheet.getColumnWidth(0));
+                for (int i = 0; i <= rowCount; i++) {
+                    for (int c = 0; c < 2; c++) {
+                        final var expectedCell = expectedSheet.getRow(i).getCell(c);
+                        final var actualCell = actualSheet.getRow(i).getCell(c);
+                        Assertions.assertEquals(expectedCell.getStringCellValue(), actualCell.getStringCellValue());
+                        final var expectedFont = expected.getFontAt(expectedCell.getCellStyle().getFontIndex());
+                        final var actualFont = actual.getFontAt(actualCell.getCellStyle().getFontIndex());
+                        Assertions.assertEquals(expectedFont.getFontName(), actualFont.getFontName());
+                        Assertions.assertEquals(expectedFont.getBold(), actualFont.getBold());
+                        Assertions.assertEquals(
+                            expectedFont.getFontHeightInPoints(),
+                            actualFont.getFontHeightInPoints()
+                        );
+                    }
+                }
+            }
+            Assertions.assertEquals(expected.getNumCellStyles(), actual.getNumCellStyles());
+        } finally {
+            sequential.close();
+            parallel.close();
+        }
+    }
+
     /**
      * Tests some properties of {@link XlsFormatter}
      *
@@ -1,16 +1,24 @@
 package com.reporter.formatter.excel.styles;
 
+import com.reporter.domain.TableCell;
 import com.reporter.domain.styles.BorderStyle;
 import com.reporter.domain.styles.LayoutStyle;
+import com.reporter.domain.styles.LayoutTextStyle;
+import com.reporter.domain.styles.StyleCondition;
+import com.reporter.domain.styles.TextStyle;
 import com.reporter.domain.styles.constants.BorderWeight;
 import com.reporter.domain.styles.constants.Color;
 import com.reporter.domain.styles.constants.FillPattern;
 import org.apache.poi.hssf.usermodel.HSSFWorkbook;
 import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+
 import static com.reporter.formatter.excel.styles.ExcelStyleService.toExcelBorder;
 import static com.reporter.formatter.excel.styles.ExcelStyleService.toExcelColor;
 import static com.reporter.formatter.excel.styles.ExcelStyleService.toExcelFillPattern;
@@ -90,4 +98,155 @@ public class ExcelStyleApplierTest {
         Assertions.assertEquals(cellStyle.getFillPattern(), toExcelFillPattern(layoutStyle.getFillPattern()));
     }
 
+    /**
+     * A copy styling another workbook does not drop cell styles cached for the workbook of the service
+     */
+    @Test
+    public void testCopyStylingAnotherWorkbookKeepsSharedCaches() throws Exception {
+        try (final var wb = new XSSFWorkbook(); final var otherWb = new XSSFWorkbook()) {
+            final var styleService = ExcelStyleService.create();
+            styleService.writeStyles(wb);
+            final var sheet = wb.createSheet();
+            final var textStyle = TextStyle.create().setBold(true);
+            final var copy = styleService.copy();
+            copy.convertTextStyleToCell(sheet.createRow(0).createCell(0), textStyle);
+            final var cellStyles = wb.getNumCellStyles();
+
+            copy.convertTextStyleToCell(otherWb.createSheet().createRow(0).createCell(0), textStyle);
+            styleService.convertTextStyleToCell(sheet.createRow(1).createCell(0), textStyle.clone());
+
+            Assertions.assertEquals(cellStyles, wb.getNumCellStyles());
+            Assertions.assertEquals(1, styleService.getReusedCellStyleCount());
+        }
+    }
+
+    /**
+     * Equal styles of different cells share one cell style and font of the workbook,
+     * a changed style does not affect the cached cell style
+     */
+    @Test
+    public void testStylesAreInterned() throws Exception {
+        try (final var wb = new XSSFWorkbook()) {
+            final var styleService = ExcelStyleService.create();
+            styleService.writeStyles(wb);
+            final var sheet = wb.createSheet();
+            final var initialCellStyles = wb.getNumCellStyles();
+            final var initialFonts = wb.getNumberOfFonts();
+            for (int i = 0; i < 100; i++) {
+                final var row = sheet.createRow(i);
+                final var textStyle = TextStyle.create().setBold(true).setFontSize((short) 12);
+                styleService.convertTextStyleToCell(row.createCell(0), textStyle);
+                styleService.convertLayoutStyleToCell(row.createCell(1), layoutStyle.clone().setAutoWidth(i % 2 == 0));
+                styleService.convertLayoutTextStyleToCell(
+                    row.createCell(2),
+                    LayoutTextStyle.create(textStyle.clone(), layoutStyle.clone())
+                );
+                textStyle.setItalic(true);
+            }
+
+            Assertions.assertEquals(3, wb.getNumCellStyles() - initialCellStyles);
+            Assertions.assertEquals(1, wb.getNumberOfFonts() - initialFonts);
+            Assertions.assertEquals(3, styleService.getCreatedCellStyleCount());
+            Assertions.assertEquals(297, styleService.getReusedCellStyleCount());
+            Assertions.assertEquals(1, styleService.getCreatedFontCount());
+            Assertions.assertEquals(
+                sheet.getRow(0).getCell(0).getCellStyle().getFontIndex(),
+                sheet.getRow(99).getCell(2).getCellStyle().getFontIndex()
+            );
+            Assertions.assertFalse(wb.getFontAt(sheet.getRow(99).getCell(0).getCellStyle().getFontIndex()).getItalic());
+        }
+    }
+
+    @Test
+    public void testMemoizedCellStyleResolution() throws Exception {
+        final var evaluations = new AtomicInteger();
+        final Predicate<TableCell> isOdd = cell -> {
+            evaluations.incrementAndGet();
+            return cell.getCustomIndex() % 2 == 1;
+        };
+        final var oddStyle = layoutStyle.clone().setFillForegroundColor(Color.GREEN_LIGHT);
+        oddStyle.setCondition(
+            StyleCondition.create(TableCell.class, isOdd).dependsOn(StyleCondition.Input.CUSTOM_INDEX_PARITY)
+        );
+        final var evenStyle = layoutStyle.clone().setFillForegroundColor(Color.WHITE);
+        evenStyle.setCondition(StyleCondition.create(TableCell.class));
+
+        try (final var wb = new XSSFWorkbook()) {
+            final var styleService = ExcelStyleService.create().addStyles(oddStyle, evenStyle);
+            styleService.writeStyles(wb);
+            final var sheet = wb.createSheet();
+            for (int i = 0; i < 100; i++) {
+                final var row = sheet.createRow(i);
+                for (int j = 0; j < 2; j++) {
+                    final var tableCell = TableCell.create("cell").setCustomIndex(i);
+                    ((ExcelStyleService) styleService).handleTableCustomCell(tableCell, row.createCell(j));
+                }
+            }
+            Assertions.assertEquals(2, evaluations.get());
+            Assertions.assertEquals(
+                toExcelColor(Color.GREEN_LIGHT),
+                sheet.getRow(99).getCell(1).getCellStyle().getFillForegroundColor()
+            );
+            Assertions.assertEquals(
+                toExcelColor(Color.WHITE),
+                sheet.getRow(98).getCell(0).getCellStyle().getFillForegroundColor()
+            );
+
+            oddStyle.setCondition(StyleCondition.create(TableCell.class, isOdd));
+            styleService.removeStyles(oddStyle, evenStyle).addStyles(oddStyle, evenStyle);
+            for (int i = 0; i < 10; i++) {
+                styleService.extractStyleFor(TableCell.create("cell").setCustomIndex(i), 0);
+            }
+            Assertions.assertEquals(12, evaluations.get());
+
+            // -1 % 2 == -1 is not odd for the predicate, its memo key differs from the one of 1
+            oddStyle.setCondition(
+                StyleCondition.create(TableCell.class, isOdd).dependsOn(StyleCondition.Input.CUSTOM_INDEX_PARITY)
+            );
+            styleService.removeStyles(oddStyle, evenStyle).addStyles(oddStyle, evenStyle);
+            Assertions.assertSame(
+                oddStyle,
+                styleService.extractStyleFor(TableCell.create("cell").setCustomIndex(1), 0).orElseThrow()
+            );
+            Assertions.assertSame(
+                evenStyle,
+                styleService.extractStyleFor(TableCell.create("cell").setCustomIndex(-1), 0).orElseThrow()
+            );
+        }
+    }
+
+    @Test
+    public void testMergedStylesAreInternedWithoutChangingItemStyles() throws Exception {
+        final var registered = LayoutTextStyle.create(TextStyle.create().setBold(true), layoutStyle.clone());
+        registered.setCondition(StyleCondition.create(TableCell.class));
+        final var styleService = ExcelStyleService.create().addStyles(registered);
+        final var cellStyle = LayoutTextStyle.create(TextStyle.create().setItalic(true), LayoutStyle.create());
+        final var expected = cellStyle.clone();
+
+        final var merged = styleService.resolveStyleFor(TableCell.create("1").setStyle(cellStyle), 0);
+        final var mergedAgain = styleService.resolveStyleFor(TableCell.create("2").setStyle(cellStyle.clone()), 1);
+
+        Assertions.assertSame(merged, mergedAgain);
+        Assertions.assertEquals(expected, cellStyle);
+        Assertions.assertTrue(((LayoutTextStyle) merged).getTextStyle().isBold());
+        Assertions.assertNotSame(registered.getLayoutStyle(), ((LayoutTextStyle) merged).getLayoutStyle());
+
+        final var equalStyle = registered.clone();
+        final var mergedEqual = styleService.mergeStyles(registered, equalStyle);
+        Assertions.assertNotSame(equalStyle, mergedEqual);
+        Assertions.assertTrue(mergedEqual.isFrozen());
+
+        final var textStyleService = ExcelStyleService.create()
+            .addStyles(TextStyle.create().setBold(true).setCondition(StyleCondition.create(TableCell.class)));
+        final var cellTextStyle = TextStyle.create().setItalic(true);
+        final var mergedText =
+            (TextStyle) textStyleService.resolveStyleFor(TableCell.create("3").setStyle(cellTextStyle), 0);
+        cellTextStyle.setFontSize((short) 14);
+        textStyleService.clearResolvedStyles();
+        final var mergedChanged =
+            (TextStyle) textStyleService.resolveStyleFor(TableCell.create("4").setStyle(cellTextStyle), 0);
+        Assertions.assertTrue(mergedText.isBold() && mergedText.isItalic());
+        Assertions.assertNotSame(mergedText, mergedChanged);
+        Assertions.assertEquals(14, mergedChanged.getFontSize());
+    }
 }